@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Run the JMH benchmarks and write the results as JSON so they
+ * can be compared between releases
+ */
+public class BenchmarkRunner
+{
+	// Machine-readable results, relative to the project directory
+	private final static String RESULT_FILE = "target/jmh-result.json";
+
+	/**
+	 * Run the benchmarks
+	 *
+	 * @param args An optional regex of the benchmarks to include, and an optional result file
+	 * @throws RunnerException If a benchmark fails
+	 */
+	public static void main( String[] args ) throws RunnerException
+	{
+		Options options = new OptionsBuilder()
+			.include( args.length > 0 ? args[0] : BenchmarkRunner.class.getPackage().getName() + ".*Benchmark" )
+			.resultFormat( ResultFormatType.JSON )
+			.result( args.length > 1 ? args[1] : RESULT_FILE )
+			.warmupIterations( 3 )
+			.measurementIterations( 5 )
+			.forks( 1 )
+			.build();
+
+		new Runner( options ).run();
+	}
+}
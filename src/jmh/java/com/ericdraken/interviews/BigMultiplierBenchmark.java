@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time per product and square of each multiplication backend at sizes
+ * around the crossovers, which is how the default thresholds of
+ * NttMultiplier and ParallelMultiplier are tuned. The backends fall back
+ * below their thresholds, so "ntt" and "parallel" use a threshold of 0.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+public class BigMultiplierBenchmark
+{
+	@Param( { "standard", "ntt", "parallel" } )
+	public String backend;
+
+	@Param( { "262144", "1048576", "4194304", "16777216" } )
+	public int bits;
+
+	private BigMultiplier multiplier;
+
+	private BigInteger a;
+
+	private BigInteger b;
+
+	@Setup
+	public void setUp()
+	{
+		switch ( backend )
+		{
+			case "ntt":
+				multiplier = new NttMultiplier( 0 );
+				break;
+			case "parallel":
+				multiplier = new ParallelMultiplier( new NttMultiplier( 0 ), ForkJoinPool.commonPool(), 0 );
+				break;
+			default:
+				multiplier = BigMultiplier.STANDARD;
+		}
+
+		Random random = new Random( 42 );
+		a = new BigInteger( bits, random ).setBit( bits - 1 );
+		b = new BigInteger( bits, random ).setBit( bits - 1 );
+	}
+
+	@Benchmark
+	public BigInteger multiply()
+	{
+		return multiplier.multiply( a, b );
+	}
+
+	@Benchmark
+	public BigInteger square()
+	{
+		return multiplier.square( a );
+	}
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of FibonacciIterator.next() at several term sizes.
+ * Each invocation re-seeds the iterator at [start] and then steps a
+ * fixed batch of Fibs, so every measured Fib lies in [start, start + BATCH)
+ * instead of growing for the whole iteration.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+public class FibonacciIteratorBenchmark
+{
+	// Fibs per invocation. From start 10000 on, the last is within 10% of the size of the first,
+	// and the timing overhead of re-seeding every invocation is spread over the batch
+	private final static int BATCH = 1_000;
+
+	// F(n) has about n / 5 digits
+	@Param( { "0", "1000", "10000", "100000" } )
+	public long start;
+
+	private FibonacciIterator it;
+
+	@Setup( Level.Invocation )
+	public void seed()
+	{
+		it = new FibonacciIterator( start );
+	}
+
+	@Benchmark
+	@OperationsPerInvocation( BATCH )
+	public BigInteger next()
+	{
+		BigInteger fib = null;
+		for ( int i = 0; i < BATCH; i++ )
+		{
+			fib = it.next();
+		}
+		return fib;
+	}
+}
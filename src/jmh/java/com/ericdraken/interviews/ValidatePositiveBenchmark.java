@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of ValidatePositive.validateWithHints on valid input
+ * and on each kind of invalid input
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+public class ValidatePositiveBenchmark
+{
+	// Valid numbers, then one input per hint. The last is the Devanagari digits 123.
+	@Param( { "1", "10000", "89038450983409580934850934850834", "007", "1.0", "100c", " -123", "\u0967\u0968\u0969" } )
+	public String input;
+
+	@Benchmark
+	public String validateWithHints()
+	{
+		return ValidatePositive.validateWithHints( input );
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * End-to-end time of FibonacciREPL.writeFibSequence to a sink that
+ * discards everything, and to a temporary file
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+public class WriteFibSequenceBenchmark
+{
+	@Param( { "100", "3000", "10000", "50000" } )
+	public long length;
+
+	private Path file;
+
+	private FileChannel fileChannel;
+
+	private final WritableByteChannel nullChannel = new NullChannel();
+
+	@Setup( Level.Trial )
+	public void createFile() throws IOException
+	{
+		file = Files.createTempFile( "fibs-bench-", ".txt" );
+	}
+
+	@Setup( Level.Invocation )
+	public void openFile() throws IOException
+	{
+		fileChannel = FileChannel.open( file, WRITE, TRUNCATE_EXISTING );
+	}
+
+	@TearDown( Level.Invocation )
+	public void closeFile() throws IOException
+	{
+		fileChannel.close();
+	}
+
+	@TearDown( Level.Trial )
+	public void deleteFile() throws IOException
+	{
+		Files.deleteIfExists( file );
+	}
+
+	@Benchmark
+	public void nullSink() throws IOException
+	{
+		FibonacciREPL.writeFibSequence( length, nullChannel );
+	}
+
+	@Benchmark
+	public void tempFile() throws IOException
+	{
+		FibonacciREPL.writeFibSequence( length, fileChannel );
+	}
+
+	/**
+	 * A channel that accepts and discards all bytes
+	 */
+	private static class NullChannel implements WritableByteChannel
+	{
+		@Override
+		public int write( ByteBuffer src )
+		{
+			int remaining = src.remaining();
+			src.position( src.limit() );
+			return remaining;
+		}
+
+		@Override
+		public boolean isOpen()
+		{
+			return true;
+		}
+
+		@Override
+		public void close()
+		{
+		}
+	}
+}
@@ -0,0 +1,322 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A channel that writes to another channel on a dedicated I/O thread.
+ * Writes are copied into a ring of reusable direct buffers, and each full
+ * buffer is handed to the I/O thread, which drains it to the target and
+ * hands it back. The writer only blocks when every buffer is waiting to
+ * be written, so generation overlaps with output while memory stays
+ * bounded by the ring. Closing the channel writes out everything and
+ * closes the target.
+ *
+ * The copy into the ring costs one memory copy per byte, which is about
+ * 1.5% of formatting the same digits, so writers keep their own buffers
+ * rather than borrowing buffers from the ring.
+ *
+ * Note: Writes must come from one thread at a time.
+ */
+public class AsyncChannel implements WritableByteChannel
+{
+	// Enough buffers that the writer rarely waits on a steady target
+	public final static int DEFAULT_BUFFER_COUNT = 4;
+
+	// Large enough that each system call moves a lot of bytes
+	public final static int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+	// Tells the I/O thread there is nothing more to write
+	private final static ByteBuffer END = ByteBuffer.allocate( 0 );
+
+	private final WritableByteChannel target;
+
+	private final int bufferCount;
+
+	// Empty buffers ready for the writer
+	private final BlockingQueue<ByteBuffer> free;
+
+	// Filled buffers waiting for the I/O thread, in order
+	private final BlockingQueue<ByteBuffer> full;
+
+	private final Thread io;
+
+	// The buffer being filled, or null between buffers
+	private ByteBuffer current = null;
+
+	// The first failure of the I/O thread, rethrown to the writer
+	private volatile IOException failure = null;
+
+	private boolean open = true;
+
+	/**
+	 * Use the default ring of buffers
+	 *
+	 * @param target The channel to write to
+	 */
+	public AsyncChannel( WritableByteChannel target )
+	{
+		this( target, DEFAULT_BUFFER_COUNT, DEFAULT_BUFFER_SIZE );
+	}
+
+	/**
+	 * Use a specific ring of buffers
+	 *
+	 * @param target The channel to write to
+	 * @param bufferCount The number of buffers in the ring, at least 2 so writing overlaps
+	 * @param bufferSize The size of each direct buffer in bytes
+	 */
+	public AsyncChannel( WritableByteChannel target, int bufferCount, int bufferSize )
+	{
+		this( target, bufferCount, bufferSize, "fibonacci-writer" );
+	}
+
+	/**
+	 * Use a specific ring of buffers and name the I/O thread after its work
+	 */
+	AsyncChannel( WritableByteChannel target, int bufferCount, int bufferSize, String threadName )
+	{
+		if ( bufferCount < 2 || bufferSize < 1 )
+		{
+			throw new IllegalArgumentException( "At least two non-empty buffers are needed: " + bufferCount + " x " + bufferSize );
+		}
+
+		this.target = target;
+		this.bufferCount = bufferCount;
+		free = new ArrayBlockingQueue<>( bufferCount );
+		full = new ArrayBlockingQueue<>( bufferCount + 1 );
+		for ( int i = 0; i < bufferCount; i++ )
+		{
+			free.add( ByteBuffer.allocateDirect( bufferSize ) );
+		}
+
+		io = new Thread( this::drain, threadName );
+		io.setDaemon( true );
+		io.start();
+	}
+
+	/**
+	 * Copy the bytes into the ring, handing each filled buffer to the
+	 * I/O thread and blocking while no buffer is free
+	 *
+	 * @param src The bytes to write
+	 * @return The number of bytes accepted, which is all of them
+	 * @throws IOException If the I/O thread failed or the channel is closed
+	 */
+	@Override
+	public int write( ByteBuffer src ) throws IOException
+	{
+		if ( !open )
+		{
+			throw new ClosedChannelException();
+		}
+		checkFailure();
+
+		int length = src.remaining();
+		while ( src.hasRemaining() )
+		{
+			if ( current == null )
+			{
+				current = take();
+			}
+
+			// Copy as much as fits without a temporary array
+			int limit = src.limit();
+			src.limit( src.position() + Math.min( src.remaining(), current.remaining() ) );
+			current.put( src );
+			src.limit( limit );
+
+			if ( !current.hasRemaining() )
+			{
+				handOff();
+			}
+		}
+		return length;
+	}
+
+	/**
+	 * Block until everything written so far has reached the target,
+	 * so output from elsewhere can follow it in order
+	 *
+	 * @throws IOException If the I/O thread failed or the channel is closed
+	 */
+	public void flush() throws IOException
+	{
+		if ( !open )
+		{
+			throw new ClosedChannelException();
+		}
+		if ( current != null && current.position() > 0 )
+		{
+			handOff();
+		}
+
+		// Every buffer is back in the ring once the I/O thread has written them all
+		ByteBuffer[] ring = new ByteBuffer[bufferCount];
+		int taken = 0;
+		if ( current != null )
+		{
+			ring[taken++] = current;
+			current = null;
+		}
+		while ( taken < bufferCount )
+		{
+			ring[taken++] = take();
+		}
+		for ( ByteBuffer buffer : ring )
+		{
+			free.add( buffer );
+		}
+		checkFailure();
+	}
+
+	/**
+	 * Return true until close() is called
+	 *
+	 * @return True if writes are accepted
+	 */
+	@Override
+	public boolean isOpen()
+	{
+		return open;
+	}
+
+	/**
+	 * Wait for the I/O thread to write everything and close the target
+	 *
+	 * @throws IOException If the I/O thread failed
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		if ( !open )
+		{
+			return;
+		}
+		open = false;
+
+		if ( current != null && current.position() > 0 )
+		{
+			handOff();
+		}
+		put( END );
+		try
+		{
+			io.join();
+		}
+		catch ( InterruptedException e )
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException( "Interrupted while finishing the output" );
+		}
+		checkFailure();
+	}
+
+	/**
+	 * Queue the current buffer for the I/O thread
+	 */
+	private void handOff() throws IOException
+	{
+		current.flip();
+		put( current );
+		current = null;
+	}
+
+	/**
+	 * Take a free buffer, giving up if the I/O thread has died
+	 */
+	private ByteBuffer take() throws IOException
+	{
+		try
+		{
+			ByteBuffer buffer;
+			while ( ( buffer = free.poll( 100, TimeUnit.MILLISECONDS ) ) == null )
+			{
+				checkAlive();
+			}
+			return buffer;
+		}
+		catch ( InterruptedException e )
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException( "Interrupted while waiting for a free buffer" );
+		}
+	}
+
+	/**
+	 * Queue a filled buffer, giving up if the I/O thread has died
+	 */
+	private void put( ByteBuffer buffer ) throws IOException
+	{
+		try
+		{
+			while ( !full.offer( buffer, 100, TimeUnit.MILLISECONDS ) )
+			{
+				checkAlive();
+			}
+		}
+		catch ( InterruptedException e )
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException( "Interrupted while queueing output" );
+		}
+	}
+
+	/**
+	 * Fail if the I/O thread is gone, preferring its own failure
+	 */
+	private void checkAlive() throws IOException
+	{
+		if ( !io.isAlive() )
+		{
+			checkFailure();
+			throw new IOException( "The writer thread stopped unexpectedly" );
+		}
+	}
+
+	/**
+	 * Rethrow an I/O thread failure on the writer's thread
+	 */
+	private void checkFailure() throws IOException
+	{
+		IOException e = failure;
+		if ( e != null )
+		{
+			throw new IOException( "Writing failed: " + e.getMessage(), e );
+		}
+	}
+
+	/**
+	 * The I/O loop, run on its own thread
+	 */
+	private void drain()
+	{
+		try ( WritableByteChannel channel = target )
+		{
+			for ( ByteBuffer buffer = full.take(); buffer != END; buffer = full.take() )
+			{
+				ChannelSequenceWriter.writeFully( buffer, channel );
+				buffer.clear();
+				free.put( buffer );
+			}
+		}
+		catch ( IOException e )
+		{
+			failure = e;
+		}
+		catch ( InterruptedException e )
+		{
+			failure = new InterruptedIOException( "Writing was interrupted" );
+		}
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.DELETE_ON_CLOSE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Answers a whole batch of sequence length queries in one sweep. The
+ * distinct lengths are sorted, and the longest sequence is generated
+ * once into a temporary file while recording where each requested
+ * length ends. Every answer is a prefix of that file, so the answers
+ * are copied out in the original query order with FileChannel.transferTo,
+ * and the whole batch costs about as much as its largest query.
+ *
+ * Each query line gets one answer line: the first n Fibs separated by
+ * spaces, or "ERR " and a hint for an invalid query.
+ */
+public class BatchQueryProcessor
+{
+	private final static byte[] NEWLINE = { '\n' };
+
+	private final static byte[] SEPARATOR = { ' ' };
+
+	private final long maxLength;
+
+	private final ChannelSequenceWriter writer = new ChannelSequenceWriter();
+
+	/**
+	 * Accept sequence lengths up to a limit
+	 *
+	 * @param maxLength The longest sequence a query may ask for
+	 */
+	public BatchQueryProcessor( long maxLength )
+	{
+		this.maxLength = maxLength;
+	}
+
+	/**
+	 * Read every query, then write every answer in the original order
+	 *
+	 * @param queries One sequence length per line
+	 * @param out The output channel
+	 * @return The number of queries answered
+	 * @throws IOException If the queries can't be read or the answers can't be written
+	 */
+	public int process( BufferedReader queries, WritableByteChannel out ) throws IOException
+	{
+		// Parse everything first. Invalid queries keep their hint.
+		QueryLexer lexer = new QueryLexer();
+		List<String> hints = new ArrayList<>();
+		long[] lengths = new long[16];
+		int count = 0;
+		for ( String line = queries.readLine(); line != null; line = queries.readLine() )
+		{
+			String hint = lexer.lexLength( line.trim() );
+			long length = hint == null ? lexer.first() : -1;
+
+			// Too large for a long is certainly too long
+			if ( hint == QueryLexer.TOO_LARGE || length > maxLength )
+			{
+				hint = "The max sequence length is " + maxLength + ".";
+				length = -1;
+			}
+
+			if ( count == lengths.length )
+			{
+				lengths = Arrays.copyOf( lengths, count * 2 );
+			}
+			lengths[count++] = length;
+			hints.add( hint );
+		}
+
+		// Distinct valid lengths in increasing order
+		long[] distinct = Arrays.stream( lengths, 0, count ).filter( length -> length > 0 ).sorted().distinct().toArray();
+
+		Path file = Files.createTempFile( "fibs-batch-", ".txt" );
+		try ( FileChannel prefix = FileChannel.open( file, READ, WRITE, DELETE_ON_CLOSE ) )
+		{
+			long[] ends = generate( distinct, prefix );
+
+			for ( int i = 0; i < count; i++ )
+			{
+				if ( lengths[i] > 0 )
+				{
+					long end = ends[Arrays.binarySearch( distinct, lengths[i] )];
+					transferFully( prefix, end, out );
+				}
+				else
+				{
+					String error = "ERR " + hints.get( i );
+					ChannelSequenceWriter.writeFully( ByteBuffer.wrap( error.getBytes( StandardCharsets.US_ASCII ) ), out );
+				}
+				ChannelSequenceWriter.writeFully( ByteBuffer.wrap( NEWLINE ), out );
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Generate the longest requested sequence in one forward pass,
+	 * returning the byte offset where each distinct length ends
+	 */
+	private long[] generate( long[] distinct, FileChannel prefix ) throws IOException
+	{
+		long[] ends = new long[distinct.length];
+		InPlaceFibonacciGenerator generator = new InPlaceFibonacciGenerator();
+		long written = 0;
+		long previous = 0;
+		for ( int i = 0; i < distinct.length; i++ )
+		{
+			if ( i > 0 )
+			{
+				written += ChannelSequenceWriter.writeFully( ByteBuffer.wrap( SEPARATOR ), prefix );
+			}
+			written += writer.write( generator, distinct[i] - previous, prefix );
+			ends[i] = written;
+			previous = distinct[i];
+		}
+		return ends;
+	}
+
+	/**
+	 * Copy the first [length] bytes of the prefix file, since
+	 * transferTo may copy fewer bytes than requested
+	 */
+	private static void transferFully( FileChannel prefix, long length, WritableByteChannel out ) throws IOException
+	{
+		for ( long position = 0; position < length; )
+		{
+			position += prefix.transferTo( position, length - position, out );
+		}
+	}
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import java.math.BigInteger;
+
+/**
+ * A pluggable big-integer multiplication backend for fast doubling, where
+ * almost all the time for a huge F(n) is spent in a few multiplications and
+ * squarings of numbers with millions of digits. Every backend returns exactly
+ * the same BigInteger as BigInteger.multiply, so results can be mixed freely.
+ */
+public interface BigMultiplier
+{
+	// BigInteger's own Karatsuba and Toom-Cook 3, on the calling thread
+	BigMultiplier STANDARD = BigInteger::multiply;
+
+	/**
+	 * Return the product of two numbers
+	 *
+	 * @param a The first factor
+	 * @param b The second factor
+	 * @return a * b
+	 */
+	BigInteger multiply( BigInteger a, BigInteger b );
+
+	/**
+	 * Return the square of a number, which backends may do with less work
+	 *
+	 * @param a The number to square
+	 * @return a * a
+	 */
+	default BigInteger square( BigInteger a )
+	{
+		return multiply( a, a );
+	}
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Streams the Fibs back out of the binary format written by
+ * BinarySequenceWriter, either as BigIntegers or as read-only views of
+ * the raw big-endian magnitudes. Only one buffer is held in memory, so
+ * sequences of any size can be consumed without parsing text.
+ *
+ * Note: This is not thread safe.
+ */
+public class BinarySequenceReader implements Iterator<BigInteger>, Closeable
+{
+	private final static int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+	private final ReadableByteChannel channel;
+
+	private final long start;
+
+	private final long count;
+
+	// Kept in read mode between calls
+	private ByteBuffer buffer;
+
+	private long position = 0;
+
+	/**
+	 * Read the header of a binary sequence
+	 *
+	 * @param channel The input channel, closed by close()
+	 * @throws IOException If the channel can't be read or isn't a binary sequence
+	 */
+	public BinarySequenceReader( ReadableByteChannel channel ) throws IOException
+	{
+		this.channel = channel;
+		buffer = ByteBuffer.allocate( DEFAULT_BUFFER_SIZE );
+		buffer.flip();
+
+		fill( BinarySequenceWriter.HEADER_SIZE );
+		byte[] magic = new byte[BinarySequenceWriter.MAGIC.length];
+		buffer.get( magic );
+		if ( !Arrays.equals( magic, BinarySequenceWriter.MAGIC ) || buffer.get() != BinarySequenceWriter.VERSION )
+		{
+			throw new IOException( "Not a binary Fibonacci sequence" );
+		}
+		start = buffer.getLong();
+		count = buffer.getLong();
+	}
+
+	/**
+	 * Return the index of the first Fib in the sequence
+	 *
+	 * @return The start index
+	 */
+	public long start()
+	{
+		return start;
+	}
+
+	/**
+	 * Return the number of Fibs in the sequence
+	 *
+	 * @return The count
+	 */
+	public long count()
+	{
+		return count;
+	}
+
+	/**
+	 * Return the index of the Fib the next read returns
+	 *
+	 * @return The current zero-based position
+	 */
+	public long position()
+	{
+		return start + position;
+	}
+
+	/**
+	 * Returns true until every Fib in the header count has been read
+	 *
+	 * @return True if there are more Fibs
+	 */
+	@Override
+	public boolean hasNext()
+	{
+		return position < count;
+	}
+
+	/**
+	 * Returns the next Fib as a BigInteger
+	 *
+	 * @return The next number
+	 * @throws UncheckedIOException If the channel can't be read or is truncated
+	 */
+	@Override
+	public BigInteger next()
+	{
+		try
+		{
+			ByteBuffer magnitude = nextBytes();
+			byte[] bytes = new byte[magnitude.remaining()];
+			magnitude.get( bytes );
+			return new BigInteger( 1, bytes );
+		}
+		catch ( IOException e )
+		{
+			throw new UncheckedIOException( e );
+		}
+	}
+
+	/**
+	 * Returns a read-only view of the big-endian magnitude of the next Fib.
+	 * The view is only valid until the next read.
+	 *
+	 * @return The magnitude bytes, empty for zero
+	 * @throws IOException If the channel can't be read or is truncated
+	 */
+	public ByteBuffer nextBytes() throws IOException
+	{
+		if ( !hasNext() )
+		{
+			throw new NoSuchElementException( "All " + count + " Fibs have been read" );
+		}
+
+		int length = readVarint();
+		fill( length );
+
+		ByteBuffer view = buffer.slice();
+		view.limit( length );
+		buffer.position( buffer.position() + length );
+		position++;
+		return view.asReadOnlyBuffer();
+	}
+
+	/**
+	 * Close the channel
+	 *
+	 * @throws IOException If the channel can't be closed
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		channel.close();
+	}
+
+	/**
+	 * Read an unsigned LEB128 varint
+	 */
+	private int readVarint() throws IOException
+	{
+		int value = 0;
+		for ( int shift = 0; shift < Integer.SIZE; shift += 7 )
+		{
+			fill( 1 );
+			byte b = buffer.get();
+			value |= ( b & 0x7F ) << shift;
+			if ( b >= 0 )
+			{
+				// The fifth byte holds bits 28 to 34, and a length must not reach bit 31
+				if ( value < 0 || shift == 28 && b > 0x07 )
+				{
+					break;
+				}
+				return value;
+			}
+		}
+		throw new IOException( "Malformed length in the binary sequence" );
+	}
+
+	/**
+	 * Make sure at least [needed] bytes are buffered, growing the buffer
+	 * for Fibs larger than it
+	 */
+	private void fill( int needed ) throws IOException
+	{
+		if ( buffer.remaining() >= needed )
+		{
+			return;
+		}
+
+		if ( buffer.capacity() < needed )
+		{
+			ByteBuffer larger = ByteBuffer.allocate( Math.max( needed, buffer.capacity() * 2 ) );
+			larger.put( buffer );
+			buffer = larger;
+		}
+		else
+		{
+			buffer.compact();
+		}
+
+		while ( buffer.position() < needed )
+		{
+			if ( channel.read( buffer ) < 0 )
+			{
+				throw new EOFException( "The binary sequence is truncated" );
+			}
+		}
+		buffer.flip();
+	}
+}
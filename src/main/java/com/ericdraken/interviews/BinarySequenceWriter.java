@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes the Fibonacci sequence in a compact binary format instead of
+ * decimal text. Each Fib is stored as its raw magnitude, which is about
+ * 2.4 times smaller than its digits and needs no radix conversion to
+ * write or to read back.
+ *
+ * Format, big-endian:
+ *   byte[4] magic "FIBS", byte version, long start index, long count
+ *   then [count] records of: unsigned LEB128 varint length, byte[length] magnitude
+ * where F(0) has a zero-length magnitude.
+ *
+ * Note: This is not thread safe because the buffer is reused across calls.
+ */
+public class BinarySequenceWriter
+{
+	final static byte[] MAGIC = { 'F', 'I', 'B', 'S' };
+
+	final static byte VERSION = 1;
+
+	final static int HEADER_SIZE = 4 + 1 + 8 + 8;
+
+	// A varint of an int length needs at most five bytes
+	private final static int MAX_VARINT_SIZE = 5;
+
+	private final ByteBuffer buffer;
+
+	/**
+	 * Use the default buffer size
+	 */
+	public BinarySequenceWriter()
+	{
+		this( ChannelSequenceWriter.DEFAULT_BUFFER_SIZE );
+	}
+
+	/**
+	 * Use a specific buffer size
+	 *
+	 * @param bufferSize The size of the direct buffer in bytes, at least the header size
+	 */
+	public BinarySequenceWriter( int bufferSize )
+	{
+		buffer = ByteBuffer.allocateDirect( Math.max( bufferSize, HEADER_SIZE ) );
+	}
+
+	/**
+	 * Write [count] Fibonacci numbers starting at F(start) with a header
+	 *
+	 * @param start The index of the first Fib to write
+	 * @param count The number of Fibonacci numbers to write
+	 * @param channel The output channel
+	 * @return The number of bytes written
+	 * @throws IOException Exception if the channel is closed or invalid
+	 */
+	public long write( long start, long count, WritableByteChannel channel ) throws IOException
+	{
+		long written = 0;
+
+		buffer.clear();
+		buffer.put( MAGIC ).put( VERSION ).putLong( start ).putLong( count );
+
+		FibonacciIterator it = new FibonacciIterator( start );
+		for ( long i = 0; i < count; i++ )
+		{
+			// Drop the sign byte that toByteArray() adds when the top bit is set
+			BigInteger fib = it.next();
+			byte[] bytes = fib.toByteArray();
+			int offset = bytes[0] == 0 ? 1 : 0;
+			int length = bytes.length - offset;
+
+			if ( buffer.remaining() < MAX_VARINT_SIZE )
+			{
+				written += drain( channel );
+			}
+			putVarint( length );
+
+			// A Fib may be larger than the buffer, so copy it in pieces
+			while ( length > 0 )
+			{
+				if ( !buffer.hasRemaining() )
+				{
+					written += drain( channel );
+				}
+				int n = Math.min( length, buffer.remaining() );
+				buffer.put( bytes, offset, n );
+				offset += n;
+				length -= n;
+			}
+		}
+		return written + drain( channel );
+	}
+
+	/**
+	 * Write an unsigned LEB128 varint, seven bits per byte, low bits first
+	 */
+	private void putVarint( int value )
+	{
+		while ( ( value & ~0x7F ) != 0 )
+		{
+			buffer.put( (byte) ( ( value & 0x7F ) | 0x80 ) );
+			value >>>= 7;
+		}
+		buffer.put( (byte) value );
+	}
+
+	/**
+	 * Write out and clear whatever is in the buffer
+	 */
+	private long drain( WritableByteChannel channel ) throws IOException
+	{
+		buffer.flip();
+		long written = ChannelSequenceWriter.writeFully( buffer, channel );
+		buffer.clear();
+		return written;
+	}
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Streams the Fibonacci sequence as ASCII to an NIO channel through one
+ * large direct ByteBuffer. The memory used is bounded by the buffer and
+ * the digits of the largest Fib, no matter how many Fibs are written,
+ * and each channel write moves megabytes instead of a few characters.
+ *
+ * Note: This is not thread safe because the buffer is reused across calls.
+ */
+public class ChannelSequenceWriter
+{
+	// Large enough that a file is written in few system calls
+	public final static int DEFAULT_BUFFER_SIZE = 8 << 20;
+
+	private final ByteBuffer buffer;
+
+	/**
+	 * Use the default buffer size
+	 */
+	public ChannelSequenceWriter()
+	{
+		this( DEFAULT_BUFFER_SIZE );
+	}
+
+	/**
+	 * Use a specific buffer size
+	 *
+	 * @param bufferSize The size of the direct buffer in bytes
+	 */
+	public ChannelSequenceWriter( int bufferSize )
+	{
+		buffer = ByteBuffer.allocateDirect( bufferSize );
+	}
+
+	/**
+	 * Write the first [length] Fibonacci numbers separated by spaces
+	 *
+	 * @param length The number of Fibonacci numbers to write
+	 * @param channel The output channel
+	 * @return The number of bytes written
+	 * @throws IOException Exception if the channel is closed or invalid
+	 */
+	public long write( long length, WritableByteChannel channel ) throws IOException
+	{
+		return write( 0, length, channel );
+	}
+
+	/**
+	 * Write [count] Fibonacci numbers starting at F(start) separated by spaces.
+	 * The generator is seeded directly, so earlier Fibs are not generated.
+	 *
+	 * @param start The index of the first Fib to write
+	 * @param count The number of Fibonacci numbers to write
+	 * @param channel The output channel
+	 * @return The number of bytes written
+	 * @throws IOException Exception if the channel is closed or invalid
+	 */
+	public long write( long start, long count, WritableByteChannel channel ) throws IOException
+	{
+		return write( new InPlaceFibonacciGenerator( start ), count, channel );
+	}
+
+	/**
+	 * Write the next [count] terms of a generator separated by spaces, leaving
+	 * the generator on the term after the last one written. Any sequence can be
+	 * written, such as a LinearRecurrence generator. Everything is written out
+	 * before returning, so the caller may write to the channel between calls.
+	 *
+	 * @param generator The generator to continue from
+	 * @param count The number of terms to write
+	 * @param channel The output channel
+	 * @return The number of bytes written
+	 * @throws IOException Exception if the channel is closed or invalid
+	 */
+	public long write( SequenceGenerator generator, long count, WritableByteChannel channel ) throws IOException
+	{
+		// Size for the longest term the generator can foresee and its separator, and grow past that as needed
+		byte[] digits = new byte[count <= 0 ? 0 : generator.maxDigits( count ) + 1];
+		long written = 0;
+
+		// Null unless metrics are enabled, in which case each phase end reads the clock
+		Metrics.Request phases = Metrics.phases();
+		long mark = phases == null ? 0 : System.nanoTime();
+
+		buffer.clear();
+		for ( long i = 1; i <= count; i++ )
+		{
+			// Reuse the digit buffer, leaving room for a separator
+			int needed = generator.digitCount() + 1;
+			if ( needed > digits.length )
+			{
+				digits = new byte[needed * 2];
+			}
+
+			int end = generator.writeDigits( digits, 0 );
+			if ( i < count )
+			{
+				digits[end++] = ' ';
+			}
+
+			// A Fib may be larger than the buffer, so copy it in pieces
+			for ( int offset = 0; offset < end; )
+			{
+				int n = Math.min( end - offset, buffer.remaining() );
+				buffer.put( digits, offset, n );
+				offset += n;
+				if ( !buffer.hasRemaining() )
+				{
+					if ( phases != null )
+					{
+						mark = phases.format( mark );
+					}
+					written += drain( channel );
+					if ( phases != null )
+					{
+						mark = phases.write( mark );
+					}
+				}
+			}
+			if ( phases != null )
+			{
+				mark = phases.format( mark );
+			}
+
+			generator.advance();
+			if ( phases != null )
+			{
+				mark = phases.compute( mark );
+			}
+		}
+		written += drain( channel );
+
+		if ( phases != null )
+		{
+			phases.write( mark );
+			phases.output( count, written );
+			Metrics.done( phases );
+		}
+		return written;
+	}
+
+	/**
+	 * Write out and clear whatever is in the buffer
+	 */
+	private long drain( WritableByteChannel channel ) throws IOException
+	{
+		buffer.flip();
+		long written = writeFully( buffer, channel );
+		buffer.clear();
+		return written;
+	}
+
+	/**
+	 * Write all the remaining bytes of a buffer, since a channel
+	 * may accept fewer bytes than requested
+	 *
+	 * @param src The bytes to write
+	 * @param channel The output channel
+	 * @return The number of bytes written
+	 * @throws IOException Exception if the channel is closed or invalid
+	 */
+	static long writeFully( ByteBuffer src, WritableByteChannel channel ) throws IOException
+	{
+		long written = 0;
+		while ( src.hasRemaining() )
+		{
+			written += channel.write( src );
+		}
+		return written;
+	}
+}
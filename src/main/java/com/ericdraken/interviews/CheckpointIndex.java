@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * A persistent on-disk index of sparse Fibonacci checkpoints
+ * ( n, F(n), F(n+1) ) stored every [interval] Fibs in a memory-mapped file.
+ * A FibonacciIterator attached to an index seeks to the nearest checkpoint
+ * and walks at most [interval] steps, and appends new checkpoints as it
+ * generates past the end of the index. The index survives between runs,
+ * so huge prefixes are only ever generated once.
+ *
+ * File layout, big-endian:
+ *   int magic, int version, long interval, long count, long end
+ *   then [count] entries of: long n, int length, byte[] F(n), int length, byte[] F(n+1)
+ * where the numbers are BigInteger.toByteArray() and entry i holds n = i * interval.
+ *
+ * Note: A single mapping is limited to 2GB, which holds checkpoints up to
+ * roughly n = 10^7 at the default interval.
+ */
+public class CheckpointIndex implements Closeable
+{
+	// Checkpoint every this many Fibs unless told otherwise
+	public final static int DEFAULT_INTERVAL = 10_000;
+
+	// "FIBX"
+	private final static int MAGIC = 0x46494258;
+
+	private final static int VERSION = 1;
+
+	private final static int HEADER_SIZE = 4 + 4 + 8 + 8 + 8;
+
+	private final static int COUNT_OFFSET = 16;
+
+	private final static int END_OFFSET = 24;
+
+	private final static int INITIAL_CAPACITY = 1 << 16;
+
+	private final FileChannel channel;
+
+	private final long interval;
+
+	private MappedByteBuffer map;
+
+	// File offset of each entry
+	private long[] offsets = new long[16];
+
+	private int count;
+
+	private int end;
+
+	/**
+	 * Open an existing index, or create a new one seeded with F(0) and F(1)
+	 *
+	 * @param file The index file
+	 * @param interval The number of Fibs between checkpoints of a new index
+	 * @return The open index
+	 * @throws IOException If the file is unreadable, not an index, or uses another interval
+	 */
+	public static CheckpointIndex open( Path file, long interval ) throws IOException
+	{
+		if ( interval < 1 )
+		{
+			throw new IllegalArgumentException( "The checkpoint interval must be positive: " + interval );
+		}
+
+		FileChannel channel = FileChannel.open( file, CREATE, READ, WRITE );
+		try
+		{
+			return new CheckpointIndex( channel, interval );
+		}
+		catch ( IOException | RuntimeException e )
+		{
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Map the file and either validate and scan it, or write a new header
+	 */
+	private CheckpointIndex( FileChannel channel, long interval ) throws IOException
+	{
+		this.channel = channel;
+		this.interval = interval;
+
+		long size = channel.size();
+		map = channel.map( FileChannel.MapMode.READ_WRITE, 0, Math.max( size, INITIAL_CAPACITY ) );
+
+		if ( size == 0 )
+		{
+			map.putInt( 0, MAGIC );
+			map.putInt( 4, VERSION );
+			map.putLong( 8, interval );
+			map.putLong( COUNT_OFFSET, 0 );
+			map.putLong( END_OFFSET, HEADER_SIZE );
+			end = HEADER_SIZE;
+			append( BigInteger.ZERO, BigInteger.ONE );
+			return;
+		}
+
+		if ( size < HEADER_SIZE || map.getInt( 0 ) != MAGIC || map.getInt( 4 ) != VERSION )
+		{
+			throw new IOException( "Not a Fibonacci checkpoint index" );
+		}
+		if ( map.getLong( 8 ) != interval )
+		{
+			throw new IOException( "The checkpoint index uses an interval of " + map.getLong( 8 ) + ", not " + interval );
+		}
+
+		// Rebuild the entry offsets by walking the entries
+		long entries = map.getLong( COUNT_OFFSET );
+		end = (int) map.getLong( END_OFFSET );
+		int offset = HEADER_SIZE;
+		for ( long i = 0; i < entries; i++ )
+		{
+			addOffset( offset );
+			offset += 8;
+			offset += 4 + map.getInt( offset );
+			offset += 4 + map.getInt( offset );
+		}
+		if ( offset != end )
+		{
+			throw new IOException( "The checkpoint index is corrupt" );
+		}
+	}
+
+	/**
+	 * Return the number of Fibs between checkpoints
+	 *
+	 * @return The interval
+	 */
+	public long interval()
+	{
+		return interval;
+	}
+
+	/**
+	 * Return the number of checkpoints stored
+	 *
+	 * @return The checkpoint count, at least 1
+	 */
+	public synchronized int count()
+	{
+		return count;
+	}
+
+	/**
+	 * Return the entry number of the nearest checkpoint at or before n
+	 *
+	 * @param n The zero-based Fibonacci index
+	 * @return The entry number, whose index is entry * interval()
+	 */
+	synchronized int floorEntry( long n )
+	{
+		return (int) Math.min( count - 1, n / interval );
+	}
+
+	/**
+	 * Read the pair ( F(n), F(n+1) ) of a checkpoint
+	 *
+	 * @param entry The entry number
+	 * @return An array of { F(n), F(n+1) } where n = entry * interval()
+	 */
+	synchronized BigInteger[] read( int entry )
+	{
+		int offset = (int) offsets[entry] + 8;
+		BigInteger a = readNumber( offset );
+		offset += 4 + map.getInt( offset );
+		BigInteger b = readNumber( offset );
+		return new BigInteger[]{ a, b };
+	}
+
+	/**
+	 * Append a checkpoint if n is the next one the index is missing.
+	 * Anything else is ignored, so iterators can offer every multiple
+	 * of the interval they pass without checking the index first.
+	 *
+	 * @param n The zero-based Fibonacci index
+	 * @param fn F(n)
+	 * @param fn1 F(n+1)
+	 * @throws IllegalStateException If the index can't grow
+	 */
+	synchronized void offer( long n, BigInteger fn, BigInteger fn1 )
+	{
+		if ( n != count * interval )
+		{
+			return;
+		}
+
+		try
+		{
+			append( fn, fn1 );
+		}
+		catch ( IOException e )
+		{
+			throw new IllegalStateException( "Unable to extend the checkpoint index", e );
+		}
+	}
+
+	/**
+	 * Flush the mapped pages and close the file
+	 *
+	 * @throws IOException If the file can't be closed
+	 */
+	@Override
+	public synchronized void close() throws IOException
+	{
+		map.force();
+		channel.close();
+	}
+
+	/**
+	 * Write a new entry at the end and update the header
+	 */
+	private void append( BigInteger fn, BigInteger fn1 ) throws IOException
+	{
+		byte[] a = fn.toByteArray();
+		byte[] b = fn1.toByteArray();
+		long size = (long) end + 8 + 4 + a.length + 4 + b.length;
+		ensureCapacity( size );
+
+		map.position( end );
+		map.putLong( count * interval );
+		map.putInt( a.length ).put( a );
+		map.putInt( b.length ).put( b );
+
+		addOffset( end );
+		end = (int) size;
+		map.putLong( COUNT_OFFSET, count );
+		map.putLong( END_OFFSET, end );
+	}
+
+	/**
+	 * Remap the file with at least [size] bytes, doubling the mapping
+	 */
+	private void ensureCapacity( long size ) throws IOException
+	{
+		if ( size <= map.capacity() )
+		{
+			return;
+		}
+		if ( size > Integer.MAX_VALUE )
+		{
+			throw new IOException( "The checkpoint index is full" );
+		}
+
+		long capacity = Math.min( Integer.MAX_VALUE, Math.max( size, (long) map.capacity() * 2 ) );
+		map.force();
+		map = channel.map( FileChannel.MapMode.READ_WRITE, 0, capacity );
+	}
+
+	/**
+	 * Record the file offset of the next entry
+	 */
+	private void addOffset( long offset )
+	{
+		if ( count == offsets.length )
+		{
+			offsets = Arrays.copyOf( offsets, count * 2 );
+		}
+		offsets[count++] = offset;
+	}
+
+	/**
+	 * Read a length-prefixed BigInteger
+	 */
+	private BigInteger readNumber( int offset )
+	{
+		byte[] bytes = new byte[map.getInt( offset )];
+		ByteBuffer view = map.duplicate();
+		view.position( offset + 4 );
+		view.get( bytes );
+		return new BigInteger( bytes );
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streams the Fibs back out of a gzipped sequence file written through
+ * CompressingChannel, either as BigIntegers or as read-only views of
+ * their ASCII digits. The file is decompressed as it is read, so huge
+ * sequences are consumed without inflating them to disk first.
+ *
+ * Note: This is not thread safe.
+ */
+public class CompressedSequenceReader implements Iterator<BigInteger>, Closeable
+{
+	private final static int BUFFER_SIZE = 1 << 16;
+
+	private final InputStream in;
+
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+
+	private int bufferPosition = 0;
+
+	private int bufferLimit = 0;
+
+	// The digits of the next Fib, read ahead so hasNext() is exact
+	private byte[] digits = new byte[64];
+
+	// Holds the digits handed out by the last nextDigits() call
+	private byte[] spare = new byte[64];
+
+	private int digitCount = -1;
+
+	/**
+	 * Read a gzipped sequence of space-separated Fibs
+	 *
+	 * @param compressed The gzip stream, closed by close()
+	 * @throws IOException If the stream can't be read or isn't gzip
+	 */
+	public CompressedSequenceReader( InputStream compressed ) throws IOException
+	{
+		in = new GZIPInputStream( compressed, BUFFER_SIZE );
+		readAhead();
+	}
+
+	/**
+	 * Returns true until the end of the stream
+	 *
+	 * @return True if there are more Fibs
+	 */
+	@Override
+	public boolean hasNext()
+	{
+		return digitCount >= 0;
+	}
+
+	/**
+	 * Returns the next Fib as a BigInteger
+	 *
+	 * @return The next number
+	 * @throws UncheckedIOException If the stream can't be read
+	 */
+	@Override
+	public BigInteger next()
+	{
+		try
+		{
+			ByteBuffer view = nextDigits();
+			return new BigInteger( StandardCharsets.US_ASCII.decode( view ).toString() );
+		}
+		catch ( IOException e )
+		{
+			throw new UncheckedIOException( e );
+		}
+	}
+
+	/**
+	 * Returns a read-only view of the ASCII digits of the next Fib.
+	 * The view is only valid until the next read.
+	 *
+	 * @return The digits
+	 * @throws IOException If the stream can't be read
+	 */
+	public ByteBuffer nextDigits() throws IOException
+	{
+		if ( !hasNext() )
+		{
+			throw new NoSuchElementException( "The sequence has ended" );
+		}
+
+		// Hand out the current digits and read the following Fib into the other array
+		ByteBuffer view = ByteBuffer.wrap( digits, 0, digitCount ).asReadOnlyBuffer();
+		byte[] handedOut = digits;
+		digits = spare;
+		spare = handedOut;
+		readAhead();
+		return view;
+	}
+
+	/**
+	 * Close the stream
+	 *
+	 * @throws IOException If the stream can't be closed
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		in.close();
+	}
+
+	/**
+	 * Read the digits up to the next separator, or mark the end of the stream
+	 */
+	private void readAhead() throws IOException
+	{
+		int count = 0;
+		while ( true )
+		{
+			if ( bufferPosition == bufferLimit )
+			{
+				bufferLimit = in.read( buffer );
+				bufferPosition = 0;
+				if ( bufferLimit < 0 )
+				{
+					bufferLimit = 0;
+					digitCount = count > 0 ? count : -1;
+					return;
+				}
+			}
+
+			byte b = buffer[bufferPosition++];
+			if ( b == ' ' )
+			{
+				digitCount = count;
+				return;
+			}
+
+			if ( count == digits.length )
+			{
+				digits = Arrays.copyOf( digits, count * 2 );
+			}
+			digits[count++] = b;
+		}
+	}
+}
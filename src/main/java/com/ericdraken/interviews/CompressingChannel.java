@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A channel that gzips everything written to it on a dedicated thread.
+ * The sequence writers fill their buffers as usual, and each formatted
+ * chunk is copied into the ring of an AsyncChannel whose I/O thread does
+ * the compressing, so compression overlaps with generation instead of
+ * adding to it. When the compressor falls behind, writers block on the
+ * full ring, which bounds memory. Closing the channel finishes the gzip
+ * stream and closes the target.
+ *
+ * Note: Writes must come from one thread at a time.
+ */
+public class CompressingChannel extends AsyncChannel
+{
+	// Chunks waiting for the compressor
+	private final static int BUFFER_COUNT = 4;
+
+	private final static int BUFFER_SIZE = 1 << 20;
+
+	private final static int GZIP_BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Compress quickly, which keeps up with generation on most hardware
+	 *
+	 * @param target The channel to write the gzip stream to
+	 * @throws IOException If the gzip header can't be written
+	 */
+	public CompressingChannel( WritableByteChannel target ) throws IOException
+	{
+		this( target, Deflater.BEST_SPEED );
+	}
+
+	/**
+	 * Compress at a specific level
+	 *
+	 * @param target The channel to write the gzip stream to
+	 * @param level The deflate level from 1 (fastest) to 9 (smallest)
+	 * @throws IOException If the gzip header can't be written
+	 */
+	public CompressingChannel( WritableByteChannel target, int level ) throws IOException
+	{
+		super( Channels.newChannel( gzip( target, level ) ), BUFFER_COUNT, BUFFER_SIZE, "fibonacci-compressor" );
+	}
+
+	/**
+	 * Open a gzip stream on the target, writing the gzip header
+	 */
+	private static OutputStream gzip( WritableByteChannel target, int level ) throws IOException
+	{
+		return new GZIPOutputStream( Channels.newOutputStream( target ), GZIP_BUFFER_SIZE )
+		{
+			{
+				def.setLevel( level );
+			}
+		};
+	}
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Divide-and-conquer conversion of BigIntegers to ASCII decimal digits.
+ * A number is split by a power of ten of about half its digit count,
+ * and the quotient and zero-padded remainder are converted recursively
+ * until they fit in a long. The powers of ten 10^(18 * 2^k) are cached,
+ * so consecutive Fibs of similar size reuse the same divisors.
+ * Digits are written straight into a caller-supplied byte buffer,
+ * so no intermediate String or char[] is created.
+ *
+ * Note: This is not thread safe because of the power cache.
+ * Use one formatter per thread.
+ * REF: https://members.loria.fr/PZimmermann/mca/mca-cup-0.5.9.pdf (section 1.7)
+ */
+public class DecimalFormatter
+{
+	// The number of decimal digits that always fit in a long
+	private final static int LEAF_DIGITS = 18;
+
+	private final static double LOG10_2 = Math.log10( 2 );
+
+	// powers[k] = 10^(18 * 2^k)
+	private BigInteger[] powers = { BigInteger.TEN.pow( LEAF_DIGITS ) };
+
+	private int powerCount = 1;
+
+	/**
+	 * Return an upper bound on the number of bytes needed to format a number,
+	 * including the minus sign
+	 *
+	 * @param value The number to format
+	 * @return The maximum number of ASCII bytes
+	 */
+	public static int maxLength( BigInteger value )
+	{
+		int digits = (int) ( value.bitLength() * LOG10_2 ) + 1;
+		return value.signum() < 0 ? digits + 1 : digits;
+	}
+
+	/**
+	 * Write the decimal digits of a number into a byte buffer
+	 *
+	 * @param value The number to format
+	 * @param dst The destination buffer with at least maxLength(value) bytes free
+	 * @param offset The position in dst to start writing at
+	 * @return The position in dst after the last digit written
+	 */
+	public int format( BigInteger value, byte[] dst, int offset )
+	{
+		if ( value.signum() < 0 )
+		{
+			dst[offset++] = '-';
+			value = value.negate();
+		}
+		return write( value, 0, dst, offset );
+	}
+
+	/**
+	 * Return the decimal digits of a number as ASCII bytes
+	 *
+	 * @param value The number to format
+	 * @return A new array holding exactly the digits
+	 */
+	public byte[] toBytes( BigInteger value )
+	{
+		byte[] dst = new byte[maxLength( value )];
+		int end = format( value, dst, 0 );
+		return end == dst.length ? dst : Arrays.copyOf( dst, end );
+	}
+
+	/**
+	 * Write the decimal digits of a non-negative long into a byte buffer
+	 *
+	 * @param value The non-negative number to format
+	 * @param dst The destination buffer with at least 19 bytes free
+	 * @param offset The position in dst to start writing at
+	 * @return The position in dst after the last digit written
+	 */
+	public static int format( long value, byte[] dst, int offset )
+	{
+		return writeLong( value, 0, dst, offset );
+	}
+
+	/**
+	 * Recursively write a non-negative number, left-padded with zeros to [pad] digits
+	 */
+	private int write( BigInteger value, int pad, byte[] dst, int offset )
+	{
+		if ( value.bitLength() < Long.SIZE - 1 )
+		{
+			return writeLong( value.longValue(), pad, dst, offset );
+		}
+
+		// Pick the power of ten with about half the digits of the value,
+		// stepping down if the digit estimate was one too many
+		int estimate = (int) ( value.bitLength() * LOG10_2 ) + 1;
+		int k = 0;
+		while ( ( LEAF_DIGITS << ( k + 1 ) ) < estimate )
+		{
+			k++;
+		}
+		while ( k > 0 && value.compareTo( power( k ) ) < 0 )
+		{
+			k--;
+		}
+
+		int split = LEAF_DIGITS << k;
+		BigInteger[] qr = value.divideAndRemainder( power( k ) );
+		offset = write( qr[0], Math.max( 0, pad - split ), dst, offset );
+		return write( qr[1], split, dst, offset );
+	}
+
+	/**
+	 * Write a non-negative long, left-padded with zeros to [pad] digits
+	 */
+	private static int writeLong( long value, int pad, byte[] dst, int offset )
+	{
+		int digits = 1;
+		for ( long v = value / 10; v > 0; v /= 10 )
+		{
+			digits++;
+		}
+
+		int end = offset + Math.max( digits, pad );
+		for ( int i = end - 1; i >= offset; i-- )
+		{
+			dst[i] = (byte) ( '0' + value % 10 );
+			value /= 10;
+		}
+		return end;
+	}
+
+	/**
+	 * Return 10^(18 * 2^k), squaring the largest cached power as needed
+	 */
+	private BigInteger power( int k )
+	{
+		if ( k >= powerCount )
+		{
+			if ( k >= powers.length )
+			{
+				powers = Arrays.copyOf( powers, Math.max( k + 1, powers.length * 2 ) );
+			}
+			while ( powerCount <= k )
+			{
+				powers[powerCount] = powers[powerCount - 1].multiply( powers[powerCount - 1] );
+				powerCount++;
+			}
+		}
+		return powers[k];
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import java.math.BigInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Random-access Fibonacci numbers using the fast doubling identities
+ *
+ *   F(2k)   = F(k) * ( 2*F(k+1) - F(k) ) = F(k+1)^2 - F(k-1)^2
+ *   F(2k+1) = F(k)^2 + F(k+1)^2
+ *
+ * which need O(log n) big squarings instead of the O(n) big additions
+ * needed to walk the sequence from F(0). The squarings go through a
+ * pluggable BigMultiplier, since they are nearly all the time for huge n.
+ * REF: https://www.nayuki.io/page/fast-fibonacci-algorithms
+ */
+public final class Fibonacci
+{
+	// Falls back to BigInteger.multiply below the NTT threshold, and to one thread on one core
+	private final static BigMultiplier MULTIPLIER = new ParallelMultiplier();
+
+	private Fibonacci()
+	{
+		// Static utility class
+	}
+
+	/**
+	 * Return the pair ( F(n), F(n+1) ) as a two-element array, multiplying
+	 * huge Fibs with the NTT on all cores and smaller ones with BigInteger
+	 *
+	 * @param n The zero-based index into the sequence, F(0) = 0
+	 * @return An array of { F(n), F(n+1) }
+	 * @throws IllegalArgumentException If n is negative
+	 */
+	public static BigInteger[] get( long n )
+	{
+		return get( n, MULTIPLIER );
+	}
+
+	/**
+	 * Return the pair ( F(n), F(n+1) ) as a two-element array,
+	 * with a specific multiplication backend
+	 *
+	 * @param n The zero-based index into the sequence, F(0) = 0
+	 * @param multiplier The backend for the squarings
+	 * @return An array of { F(n), F(n+1) }
+	 * @throws IllegalArgumentException If n is negative
+	 */
+	public static BigInteger[] get( long n, BigMultiplier multiplier )
+	{
+		if ( n < 0 )
+		{
+			throw new IllegalArgumentException( "The Fibonacci index must not be negative: " + n );
+		}
+
+		// Start from ( F(0), F(1) ) and consume the bits of n from the most significant
+		BigInteger a = BigInteger.ZERO;
+		BigInteger b = BigInteger.ONE;
+		for ( int bit = 63 - Long.numberOfLeadingZeros( n ); bit >= 0; bit-- )
+		{
+			// ( F(k), F(k+1) ) -> ( F(2k), F(2k+1) ), where F(2k) = F(k+1)^2 - F(k-1)^2.
+			// Squares are cheaper than products, so only squares are used.
+			BigInteger a2 = multiplier.square( a );
+			BigInteger b2 = multiplier.square( b );
+			BigInteger c = b2.subtract( multiplier.square( b.subtract( a ) ) );
+			BigInteger d = a2.add( b2 );
+
+			if ( ( ( n >>> bit ) & 1 ) == 0 )
+			{
+				a = c;
+				b = d;
+			}
+			else
+			{
+				// ( F(2k), F(2k+1) ) -> ( F(2k+1), F(2k+2) )
+				a = d;
+				b = c.add( d );
+			}
+		}
+		return new BigInteger[]{ a, b };
+	}
+
+	/**
+	 * Return the single Fibonacci number F(n)
+	 *
+	 * @param n The zero-based index into the sequence, F(0) = 0
+	 * @return F(n)
+	 * @throws IllegalArgumentException If n is negative
+	 */
+	public static BigInteger term( long n )
+	{
+		return get( n )[0];
+	}
+
+	/**
+	 * Return a sequential stream of the Fibs F(from) to F(to - 1). Call
+	 * parallel() on it to generate the range on all cores, with each
+	 * split seeded directly at its first index.
+	 *
+	 * @param from The index of the first Fib
+	 * @param to The index just past the last Fib
+	 * @return The ordered stream of Fibs
+	 * @throws IllegalArgumentException If from is negative or the range is backwards
+	 */
+	public static Stream<BigInteger> stream( long from, long to )
+	{
+		return StreamSupport.stream( new FibonacciSpliterator( from, to ), false );
+	}
+}
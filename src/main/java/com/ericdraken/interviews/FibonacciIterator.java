@@ -19,8 +19,48 @@ public class FibonacciIterator implements Iterator<BigInteger>
 	// Initialize the seed values
 	// Note: the F(0) = 0, so the 1st Fib is 0, not 1.
 	// REF: http://en.wikipedia.org/wiki/Fibonacci_sequence
-	private BigInteger a = null;
-	private BigInteger b = null;
+	private BigInteger a = BigInteger.ZERO;
+	private BigInteger b = BigInteger.ONE;
+
+	// The index of a, which is the Fib the next call to next() returns
+	private long position = 0;
+
+	// BigInteger multiplies schoolbook when a factor has fewer than 80 ints
+	private final static int SCHOOLBOOK_BITS = 80 * 32;
+
+	// Optional persistent checkpoints to seek from and extend
+	private final CheckpointIndex checkpoints;
+
+	/**
+	 * Start the sequence at F(0)
+	 */
+	public FibonacciIterator()
+	{
+		this.checkpoints = null;
+	}
+
+	/**
+	 * Start the sequence at F(start) without walking the earlier numbers
+	 *
+	 * @param start The index of the first Fib returned by next()
+	 */
+	public FibonacciIterator( long start )
+	{
+		this.checkpoints = null;
+		seek( start );
+	}
+
+	/**
+	 * Start the sequence at F(0) and seek through a checkpoint index.
+	 * Passing a multiple of the index interval appends a checkpoint
+	 * if the index doesn't have it yet.
+	 *
+	 * @param checkpoints The checkpoint index to seek from and extend
+	 */
+	public FibonacciIterator( CheckpointIndex checkpoints )
+	{
+		this.checkpoints = checkpoints;
+	}
 
 	/**
 	 * Returns the next number in the Fibonacci sequence.
@@ -30,28 +70,19 @@ public class FibonacciIterator implements Iterator<BigInteger>
 	@Override
 	public BigInteger next()
 	{
-		// Seed and return a
-		if ( a == null )
-		{
-			a = BigInteger.valueOf( 0 );
-			return a;
-		}
-
-		// Seed and return b
-		if ( b == null )
-		{
-			b = BigInteger.valueOf( 1 );
-			return b;
-		}
-
-		// a + b = sum
-		BigInteger sum = a.add( b );
+		BigInteger current = a;
 
 		// Shift a and b forward
 		a = b;
-		b = sum;
+		b = current.add( b );
+		position++;
+
+		if ( checkpoints != null && position % checkpoints.interval() == 0 )
+		{
+			checkpoints.offer( position, a, b );
+		}
 
-		return sum;
+		return current;
 	}
 
 	/**
@@ -73,4 +104,117 @@ public class FibonacciIterator implements Iterator<BigInteger>
 	{
 		throw new UnsupportedOperationException( "Removal of Fibonacci numbers generated on the fly is not supported" );
 	}
+
+	/**
+	 * Jump to index n so that the next call to next() returns F(n).
+	 * This uses fast doubling, so it costs O(log n) multiplications
+	 * regardless of the current position. With a checkpoint index it
+	 * walks from the nearest checkpoint instead, which costs at most
+	 * one interval of additions. When n is past the end of the index,
+	 * the missing checkpoints are first appended by jumping one interval
+	 * at a time, which costs four multiplications by the small F(interval)
+	 * per checkpoint instead of an interval of big additions.
+	 *
+	 * @param n The zero-based index to jump to
+	 * @throws IllegalArgumentException If n is negative
+	 */
+	public void seek( long n )
+	{
+		if ( n < 0 )
+		{
+			throw new IllegalArgumentException( "The Fibonacci index must not be negative: " + n );
+		}
+
+		if ( checkpoints == null )
+		{
+			BigInteger[] pair = Fibonacci.get( n );
+			a = pair[0];
+			b = pair[1];
+			position = n;
+			return;
+		}
+
+		// Restart from the checkpoint unless walking on from here is shorter
+		long interval = checkpoints.interval();
+		long target = n / interval;
+		if ( position > n || position < target * interval )
+		{
+			int entry = checkpoints.floorEntry( n );
+			BigInteger[] pair = checkpoints.read( entry );
+			if ( entry < target )
+			{
+				pair = extend( entry, pair, target );
+			}
+			a = pair[0];
+			b = pair[1];
+			position = target * interval;
+		}
+		while ( position < n )
+		{
+			next();
+		}
+	}
+
+	/**
+	 * Append the checkpoints after the last one up to a target entry, using
+	 * F(m+K) = F(m+1)*F(K) + F(m)*F(K-1) and F(m+K+1) = F(m+1)*F(K+1) + F(m)*F(K)
+	 * with K the interval, and return the pair at the target
+	 */
+	private BigInteger[] extend( long entry, BigInteger[] pair, long target )
+	{
+		long interval = checkpoints.interval();
+		BigInteger[] step = Fibonacci.get( interval );
+		BigInteger before = step[1].subtract( step[0] );
+		BigInteger fm = pair[0];
+		BigInteger fm1 = pair[1];
+		for ( long e = entry + 1; e <= target; e++ )
+		{
+			BigInteger next = multiplySmall( fm1, step[0] ).add( multiplySmall( fm, before ) );
+			fm1 = multiplySmall( fm1, step[1] ).add( multiplySmall( fm, step[0] ) );
+			fm = next;
+			checkpoints.offer( e * interval, fm, fm1 );
+		}
+		return new BigInteger[]{ fm, fm1 };
+	}
+
+	/**
+	 * Multiply a huge number by a much smaller one. Below its Karatsuba threshold
+	 * BigInteger multiplies schoolbook, which is already linear in the huge factor,
+	 * but above it Toom-Cook pads both factors to the larger length, so the huge
+	 * one is halved instead until the products are balanced.
+	 */
+	private static BigInteger multiplySmall( BigInteger big, BigInteger small )
+	{
+		if ( small.bitLength() < SCHOOLBOOK_BITS || big.bitLength() <= 2 * small.bitLength() )
+		{
+			return big.multiply( small );
+		}
+		int h = Karatsuba.half( big, small );
+		return multiplySmall( Karatsuba.high( big, h ), small ).shiftLeft( h ).add( multiplySmall( Karatsuba.low( big, h ), small ) );
+	}
+
+	/**
+	 * Skip the next n Fibonacci numbers without returning them
+	 *
+	 * @param n The number of Fibs to skip
+	 * @throws IllegalArgumentException If n is negative
+	 */
+	public void skip( long n )
+	{
+		if ( n < 0 )
+		{
+			throw new IllegalArgumentException( "Cannot skip backwards: " + n );
+		}
+		seek( Math.addExact( position, n ) );
+	}
+
+	/**
+	 * Return the index of the Fib the next call to next() returns
+	 *
+	 * @return The current zero-based position
+	 */
+	public long position()
+	{
+		return position;
+	}
 }
@@ -0,0 +1,603 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * F(n) mod m on primitive longs, for any index up to Long.MAX_VALUE and
+ * any modulus up to Long.MAX_VALUE. This uses the same fast doubling
+ * identities as Fibonacci, with every product reduced mod m, so no
+ * BigInteger is ever built and the cost is O(log n) word operations.
+ *
+ * Products of residues below 2^32 fit in an unsigned long. Larger moduli
+ * are split into a power of two, where wrapping arithmetic is already
+ * exact, and an odd part, which uses Montgomery multiplication on the
+ * full 128-bit product. The two residues are joined by the CRT.
+ *
+ * The sequence mod m repeats with the Pisano period of m, so the index
+ * is first reduced mod the period. Periods are computed once per modulus
+ * from its prime factorization and cached.
+ * REF: https://en.wikipedia.org/wiki/Pisano_period
+ */
+public final class FibonacciMod
+{
+	// The products of residues below this fit in an unsigned long
+	private final static long SMALL_MODULUS = 1L << 32;
+
+	// Pisano periods are at most 6m, so larger moduli could overflow them
+	private final static long MAX_PERIOD_MODULUS = Long.MAX_VALUE / 6;
+
+	// Deterministic Miller-Rabin witnesses for every 64-bit number
+	// REF: https://miller-rabin.appspot.com/
+	private final static long[] WITNESSES = { 2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37 };
+
+	// Trial division handles the small factors before Pollard's rho
+	private final static int TRIAL_DIVISION_LIMIT = 1_000;
+
+	// The cached Pisano period of each modulus seen so far
+	private final static Map<Long, Long> periods = new ConcurrentHashMap<>();
+
+	private FibonacciMod()
+	{
+		// Static utility class
+	}
+
+	/**
+	 * Return F(n) mod m
+	 *
+	 * @param n The zero-based index into the sequence, F(0) = 0
+	 * @param m The modulus
+	 * @return F(n) mod m, from 0 to m - 1
+	 * @throws IllegalArgumentException If n is negative or m is not positive
+	 */
+	public static long mod( long n, long m )
+	{
+		if ( n < 0 )
+		{
+			throw new IllegalArgumentException( "The Fibonacci index must not be negative: " + n );
+		}
+		if ( m < 1 )
+		{
+			throw new IllegalArgumentException( "The modulus must be positive: " + m );
+		}
+
+		// Only reduce when the period is shorter than the index
+		if ( m <= MAX_PERIOD_MODULUS )
+		{
+			long period = pisano( m );
+			if ( n >= period )
+			{
+				n %= period;
+			}
+		}
+		return pair( n, m )[0];
+	}
+
+	/**
+	 * Return the last [k] decimal digits of F(n). Fibs with fewer
+	 * than k digits are returned whole, without leading zeros.
+	 *
+	 * @param n The zero-based index into the sequence, F(0) = 0
+	 * @param k The number of digits, from 1 to 18
+	 * @return The last digits
+	 * @throws IllegalArgumentException If n is negative or k is out of range
+	 */
+	public static String lastDigits( long n, int k )
+	{
+		if ( k < 1 || k > 18 )
+		{
+			throw new IllegalArgumentException( "Between 1 and 18 digits may be requested: " + k );
+		}
+
+		// Up to F(92) the whole Fib fits in a long
+		if ( n <= LongFibonacciIterator.MAX_INDEX )
+		{
+			LongFibonacciIterator it = new LongFibonacciIterator();
+			for ( long i = 0; i < n; i++ )
+			{
+				it.nextLong();
+			}
+			String digits = Long.toString( it.nextLong() );
+			return digits.length() <= k ? digits : digits.substring( digits.length() - k );
+		}
+
+		// Past F(92) every Fib has more than 18 digits, so keep the leading zeros
+		long m = 1;
+		for ( int i = 0; i < k; i++ )
+		{
+			m *= 10;
+		}
+		return String.format( "%0" + k + "d", mod( n, m ) );
+	}
+
+	/**
+	 * Return the Pisano period of m, the length of the cycle of F(n) mod m
+	 *
+	 * @param m The modulus, at most Long.MAX_VALUE / 6
+	 * @return The period
+	 * @throws IllegalArgumentException If m is out of range
+	 */
+	public static long pisano( long m )
+	{
+		if ( m < 1 || m > MAX_PERIOD_MODULUS )
+		{
+			throw new IllegalArgumentException( "The modulus must be between 1 and " + MAX_PERIOD_MODULUS + ": " + m );
+		}
+		return periods.computeIfAbsent( m, FibonacciMod::computePisano );
+	}
+
+	/**
+	 * Return the pair ( F(n) mod m, F(n+1) mod m ) by fast doubling
+	 */
+	static long[] pair( long n, long m )
+	{
+		if ( m == 1 )
+		{
+			return new long[]{ 0, 0 };
+		}
+		if ( m <= SMALL_MODULUS )
+		{
+			return pairSmall( n, m );
+		}
+
+		// m = 2^s * odd
+		int s = Long.numberOfTrailingZeros( m );
+		long odd = m >>> s;
+		if ( odd == 1 )
+		{
+			return pairPowerOfTwo( n, s );
+		}
+		long[] oddPair = pairOdd( n, new Montgomery( odd ) );
+		if ( s == 0 )
+		{
+			return oddPair;
+		}
+
+		// x = r + odd * ( ( e - r ) * odd^-1 mod 2^s ) meets both residues and is below m
+		long[] evenPair = pairPowerOfTwo( n, s );
+		long inverse = inverse( odd );
+		long mask = ( 1L << s ) - 1;
+		long[] pair = new long[2];
+		for ( int i = 0; i < 2; i++ )
+		{
+			pair[i] = oddPair[i] + odd * ( ( evenPair[i] - oddPair[i] ) * inverse & mask );
+		}
+		return pair;
+	}
+
+	/**
+	 * Fast doubling with products that fit in an unsigned long
+	 */
+	private static long[] pairSmall( long n, long m )
+	{
+		long a = 0;
+		long b = 1;
+		for ( int bit = 63 - Long.numberOfLeadingZeros( n ); bit >= 0; bit-- )
+		{
+			// ( F(k), F(k+1) ) -> ( F(2k), F(2k+1) )
+			long c = mulMod( a, subMod( addMod( b, b, m ), a, m ), m );
+			long d = addMod( mulMod( a, a, m ), mulMod( b, b, m ), m );
+
+			if ( ( ( n >>> bit ) & 1 ) == 0 )
+			{
+				a = c;
+				b = d;
+			}
+			else
+			{
+				// ( F(2k), F(2k+1) ) -> ( F(2k+1), F(2k+2) )
+				a = d;
+				b = addMod( c, d, m );
+			}
+		}
+		return new long[]{ a, b };
+	}
+
+	/**
+	 * Fast doubling mod 2^s, where wrapping long arithmetic is exact
+	 */
+	private static long[] pairPowerOfTwo( long n, int s )
+	{
+		long a = 0;
+		long b = 1;
+		for ( int bit = 63 - Long.numberOfLeadingZeros( n ); bit >= 0; bit-- )
+		{
+			long c = a * ( 2 * b - a );
+			long d = a * a + b * b;
+
+			if ( ( ( n >>> bit ) & 1 ) == 0 )
+			{
+				a = c;
+				b = d;
+			}
+			else
+			{
+				a = d;
+				b = c + d;
+			}
+		}
+		long mask = ( 1L << s ) - 1;
+		return new long[]{ a & mask, b & mask };
+	}
+
+	/**
+	 * Fast doubling mod an odd number, in the Montgomery domain
+	 */
+	private static long[] pairOdd( long n, Montgomery mont )
+	{
+		long m = mont.m;
+		long a = 0;
+		long b = mont.one;
+		for ( int bit = 63 - Long.numberOfLeadingZeros( n ); bit >= 0; bit-- )
+		{
+			long c = mont.multiply( a, subMod( addMod( b, b, m ), a, m ) );
+			long d = addMod( mont.multiply( a, a ), mont.multiply( b, b ), m );
+
+			if ( ( ( n >>> bit ) & 1 ) == 0 )
+			{
+				a = c;
+				b = d;
+			}
+			else
+			{
+				a = d;
+				b = addMod( c, d, m );
+			}
+		}
+		return new long[]{ mont.reduce( 0, a ), mont.reduce( 0, b ) };
+	}
+
+	/**
+	 * Return a * b mod m for residues a, b in [0, m) without overflowing.
+	 * Small moduli multiply directly in unsigned 64 bits, and larger
+	 * moduli double-and-add so no intermediate exceeds 2m. This is only
+	 * used while factoring, once per modulus.
+	 */
+	static long mulMod( long a, long b, long m )
+	{
+		if ( m <= SMALL_MODULUS )
+		{
+			return Long.remainderUnsigned( a * b, m );
+		}
+
+		long result = 0;
+		for ( ; b > 0; b >>>= 1 )
+		{
+			if ( ( b & 1 ) != 0 )
+			{
+				result = addMod( result, a, m );
+			}
+			a = addMod( a, a, m );
+		}
+		return result;
+	}
+
+	/**
+	 * Return the high 64 bits of the unsigned 128-bit product, since
+	 * Math.multiplyHigh needs Java 9
+	 * REF: Hacker's Delight, 2nd ed., section 8-2
+	 */
+	static long multiplyHighUnsigned( long x, long y )
+	{
+		long x0 = x & 0xFFFFFFFFL;
+		long x1 = x >>> 32;
+		long y0 = y & 0xFFFFFFFFL;
+		long y1 = y >>> 32;
+
+		long w0 = x0 * y0;
+		long t = x1 * y0 + ( w0 >>> 32 );
+		long w1 = ( t & 0xFFFFFFFFL ) + x0 * y1;
+		return x1 * y1 + ( t >>> 32 ) + ( w1 >>> 32 );
+	}
+
+	/**
+	 * Return the inverse of an odd number mod 2^64 by Newton's iteration,
+	 * where each step doubles the correct low bits
+	 */
+	private static long inverse( long odd )
+	{
+		// Correct to 3 bits since odd * odd = 1 mod 8
+		long inverse = odd;
+		for ( int i = 0; i < 5; i++ )
+		{
+			inverse *= 2 - odd * inverse;
+		}
+		return inverse;
+	}
+
+	/**
+	 * Montgomery multiplication mod an odd number below 2^63 with R = 2^64.
+	 * Residues are kept as a * R mod m, so each product is reduced with
+	 * two multiplications and a shift instead of a 128-bit division.
+	 * REF: https://en.wikipedia.org/wiki/Montgomery_modular_multiplication
+	 */
+	private static final class Montgomery
+	{
+		private final long m;
+
+		// -m^-1 mod R
+		private final long negativeInverse;
+
+		// R mod m, which is 1 in the Montgomery domain
+		private final long one;
+
+		Montgomery( long m )
+		{
+			this.m = m;
+			negativeInverse = -inverse( m );
+
+			// 2^64 - m as an unsigned long is congruent to R
+			one = Long.remainderUnsigned( -m, m );
+		}
+
+		/**
+		 * Return a * b / R mod m for Montgomery residues
+		 */
+		long multiply( long a, long b )
+		{
+			return reduce( multiplyHighUnsigned( a, b ), a * b );
+		}
+
+		/**
+		 * Return ( hi * R + lo ) / R mod m for a value below m * R
+		 */
+		long reduce( long hi, long lo )
+		{
+			// Adding u * m clears the low word, which carries out unless it was already zero
+			long u = lo * negativeInverse;
+			long r = hi + multiplyHighUnsigned( u, m ) + ( lo != 0 ? 1 : 0 );
+			return Long.compareUnsigned( r, m ) >= 0 ? r - m : r;
+		}
+	}
+
+	/**
+	 * Return a + b mod m for residues without overflowing
+	 */
+	private static long addMod( long a, long b, long m )
+	{
+		return a >= m - b ? a - ( m - b ) : a + b;
+	}
+
+	/**
+	 * Return a - b mod m for residues
+	 */
+	private static long subMod( long a, long b, long m )
+	{
+		return a >= b ? a - b : a + ( m - b );
+	}
+
+	/**
+	 * Combine the periods of the prime powers of m.
+	 * The period of p^k is p^(k-1) times the period of p, which holds
+	 * for every prime that isn't a Wall-Sun-Sun prime, and none are known.
+	 */
+	private static long computePisano( long m )
+	{
+		long period = 1;
+		for ( Map.Entry<Long, Integer> factor : factorize( m ).entrySet() )
+		{
+			long p = factor.getKey();
+			long primePower = primePeriod( p );
+			for ( int i = 1; i < factor.getValue(); i++ )
+			{
+				primePower *= p;
+			}
+			period = lcm( period, primePower );
+		}
+		return period;
+	}
+
+	/**
+	 * Return the Pisano period of a prime. It divides p - 1 when p is
+	 * 1 or 9 mod 10, and 2(p + 1) when p is 3 or 7 mod 10, so start from
+	 * that bound and divide out every prime factor that keeps the cycle.
+	 */
+	private static long primePeriod( long p )
+	{
+		if ( p == 2 )
+		{
+			return 3;
+		}
+		if ( p == 5 )
+		{
+			return 20;
+		}
+
+		long period = p % 10 == 1 || p % 10 == 9 ? p - 1 : 2 * ( p + 1 );
+		for ( long q : factorize( period ).keySet() )
+		{
+			while ( period % q == 0 && isCycle( period / q, p ) )
+			{
+				period /= q;
+			}
+		}
+		return period;
+	}
+
+	/**
+	 * Return true if the sequence mod m is back at ( 0, 1 ) after [length] Fibs
+	 */
+	private static boolean isCycle( long length, long m )
+	{
+		long[] fib = pair( length, m );
+		return fib[0] == 0 && fib[1] == 1;
+	}
+
+	/**
+	 * Return the prime factors of n with their exponents, smallest first
+	 */
+	static TreeMap<Long, Integer> factorize( long n )
+	{
+		TreeMap<Long, Integer> factors = new TreeMap<>();
+		for ( long p = 2; p < TRIAL_DIVISION_LIMIT && p * p <= n; p++ )
+		{
+			while ( n % p == 0 )
+			{
+				factors.merge( p, 1, Integer::sum );
+				n /= p;
+			}
+		}
+		if ( n > 1 )
+		{
+			factorizeLarge( n, factors );
+		}
+		return factors;
+	}
+
+	/**
+	 * Split a number without small factors using Pollard's rho
+	 */
+	private static void factorizeLarge( long n, TreeMap<Long, Integer> factors )
+	{
+		if ( isPrime( n ) )
+		{
+			factors.merge( n, 1, Integer::sum );
+			return;
+		}
+		long d = rho( n );
+		factorizeLarge( d, factors );
+		factorizeLarge( n / d, factors );
+	}
+
+	/**
+	 * Return a non-trivial factor of a composite using Brent's variant of Pollard's rho
+	 * REF: https://en.wikipedia.org/wiki/Pollard%27s_rho_algorithm
+	 */
+	private static long rho( long n )
+	{
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		while ( true )
+		{
+			long c = random.nextLong( 1, n );
+			long y = random.nextLong( 0, n );
+			long x = y;
+			long d = 1;
+
+			// Batch the gcds by multiplying the differences together
+			long q = 1;
+			long saved = y;
+			for ( long r = 1; d == 1; r <<= 1 )
+			{
+				x = y;
+				for ( long i = 0; i < r; i++ )
+				{
+					y = addMod( mulMod( y, y, n ), c, n );
+				}
+				for ( long k = 0; k < r && d == 1; k += 128 )
+				{
+					saved = y;
+					for ( long i = 0; i < Math.min( 128, r - k ); i++ )
+					{
+						y = addMod( mulMod( y, y, n ), c, n );
+						q = mulMod( q, Math.abs( x - y ), n );
+					}
+					d = gcd( q, n );
+				}
+			}
+
+			// The batch overshot, so retrace it one step at a time
+			if ( d == n )
+			{
+				do
+				{
+					saved = addMod( mulMod( saved, saved, n ), c, n );
+					d = gcd( Math.abs( x - saved ), n );
+				}
+				while ( d == 1 );
+			}
+			if ( d != n )
+			{
+				return d;
+			}
+		}
+	}
+
+	/**
+	 * Deterministic Miller-Rabin for any positive long
+	 */
+	static boolean isPrime( long n )
+	{
+		if ( n < 2 )
+		{
+			return false;
+		}
+		for ( long p : WITNESSES )
+		{
+			if ( n % p == 0 )
+			{
+				return n == p;
+			}
+		}
+
+		// n - 1 = d * 2^s with d odd
+		long d = n - 1;
+		int s = Long.numberOfTrailingZeros( d );
+		d >>= s;
+
+		for ( long a : WITNESSES )
+		{
+			long x = powMod( a, d, n );
+			if ( x == 1 || x == n - 1 )
+			{
+				continue;
+			}
+			boolean composite = true;
+			for ( int i = 1; i < s && composite; i++ )
+			{
+				x = mulMod( x, x, n );
+				composite = x != n - 1;
+			}
+			if ( composite )
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Return base^exponent mod m by square-and-multiply
+	 */
+	private static long powMod( long base, long exponent, long m )
+	{
+		long result = 1;
+		base %= m;
+		for ( ; exponent > 0; exponent >>>= 1 )
+		{
+			if ( ( exponent & 1 ) != 0 )
+			{
+				result = mulMod( result, base, m );
+			}
+			base = mulMod( base, base, m );
+		}
+		return result;
+	}
+
+	/**
+	 * Return the least common multiple, which fits since it divides a Pisano period
+	 */
+	private static long lcm( long a, long b )
+	{
+		return a / gcd( a, b ) * b;
+	}
+
+	/**
+	 * Return the greatest common divisor
+	 */
+	private static long gcd( long a, long b )
+	{
+		while ( b != 0 )
+		{
+			long t = a % b;
+			a = b;
+			b = t;
+		}
+		return a;
+	}
+}
@@ -4,12 +4,27 @@
 
 package com.ericdraken.interviews;
 
-import java.io.*;
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
 
 import static java.lang.System.getProperty;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
 
 public class FibonacciREPL
 {
@@ -21,27 +36,119 @@ public class FibonacciREPL
 	// Past this number writing Fibs to disk becomes problematic.
 	// e.g. Writing 10,000 fibs to disk will occupy about 10MB of text.
 	// e.g. Writing 100,000 fibs will occupy about 1GB of text disk space!
-	private final static int MAX_SEQUENCE_CALCULATION_LENGTH = 10_000;
+	// Override it with --max-length=N on the command line.
+	private final static long DEFAULT_MAX_SEQUENCE_LENGTH = 10_000;
+
+	// Command line option to set the max sequence length
+	private final static String MAX_LENGTH_OPTION = "--max-length=";
+
+	// Past this number the sequence is generated on all cores.
+	// Below it the cost of seeding each segment isn't recovered.
+	private final static int PARALLEL_SEQUENCE_LENGTH = 2_000;
+
+	// Long file writes report their progress this often
+	private final static long PROGRESS_INTERVAL_SECONDS = 1;
 
 	// Template for the output file on large Fib sequences
 	private final static String OUTPUT_FILE_TEMPLATE = "fibs-%s.txt";
 
+	// Template for the output file in the compact binary format
+	private final static String BINARY_OUTPUT_FILE_TEMPLATE = "fibs-%s.bin";
+
+	// Command line option to write files in the binary format
+	private final static String BINARY_OPTION = "--binary";
+
+	// Command line option to gzip files on a separate thread
+	private final static String GZIP_OPTION = "--gzip";
+
+	private final static String GZIP_SUFFIX = ".gz";
+
+	// Command line option to answer queries over TCP instead of the console
+	private final static String SERVER_OPTION = "--server=";
+
+	// Command line option to answer a file of queries in one sweep, or - for stdin
+	private final static String BATCH_OPTION = "--batch=";
+
+	private final static String STDIN_BATCH = "-";
+
+	// Command line option to enable metrics and print them every N seconds
+	private final static String METRICS_OPTION = "--metrics=";
+
 	// Faster processing than with System.out to avoid unnecessary UTF processing.
+	// The digits are already ASCII bytes, so no Writer is needed at all.
 	// REF: https://www.rgagnon.com/javadetails/java-0603.html
-	private static final OutputStreamWriter out =
-		new OutputStreamWriter(
-			new FileOutputStream( FileDescriptor.out ), StandardCharsets.US_ASCII );
+	private static final FileChannel out = new FileOutputStream( FileDescriptor.out ).getChannel();
+
+	// One direct buffer shared by the console and file outputs. Each drain
+	// fills one buffer of the output ring, so no syscall batching is lost.
+	private static final ChannelSequenceWriter sequenceWriter = new ChannelSequenceWriter( AsyncChannel.DEFAULT_BUFFER_SIZE );
+
+	// Displayed Fibs are requested over and over, so keep their digits
+	private static final TermCache termCache = new TermCache();
+
+	// The largest sequence length accepted, set from the command line
+	private static long maxSequenceLength = DEFAULT_MAX_SEQUENCE_LENGTH;
+
+	// Write files as binary magnitudes instead of decimal text
+	private static boolean binaryOutput = false;
+
+	// Compress files while they are generated
+	private static boolean gzipOutput = false;
+
+	// The loopback port to serve on, or -1 to run the console REPL
+	private static int serverPort = -1;
+
+	// The file of queries to answer, or null to run the console REPL
+	private static String batchFile = null;
+
+	// Seconds between metrics dumps, or 0 to leave metrics disabled
+	private static long metricsPeriod = 0;
+
+	// Reused for every console line
+	private static final QueryLexer lexer = new QueryLexer();
 
 	/**
 	 * Enter the REPL loop
 	 *
-	 * @param args Args are ignored
+	 * @param args Optional --max-length=N to raise or lower the max sequence length,
+	 *             --binary to write files in the compact binary format,
+	 *             --gzip to compress files while they are written,
+	 *             --server=PORT to answer queries over TCP instead,
+	 *             --batch=FILE to answer a file of queries, or - for stdin,
+	 *             and --metrics=SECONDS to record metrics and print them periodically
 	 */
 	public static void main( String[] args )
 	{
+		if ( !parseArgs( args ) )
+		{
+			System.err.println( usage() );
+			return;
+		}
+
+		if ( metricsPeriod > 0 )
+		{
+			enableMetrics();
+		}
+
+		if ( serverPort >= 0 )
+		{
+			serve();
+			return;
+		}
+
+		if ( batchFile != null )
+		{
+			batch();
+			return;
+		}
+
 		System.out.println( welcomeMessage() );
 		System.out.println( help() );
 
+		// The console is written on its own thread, so displaying overlaps with generating.
+		// Only the interactive REPL needs it, so the server and batch modes never start the thread.
+		AsyncChannel console = new AsyncChannel( out );
+
 		Scanner in = new Scanner( System.in );
 		while ( in.hasNextLine() )
 		{
@@ -51,66 +158,80 @@ public class FibonacciREPL
 			str = str.trim();
 
 			// Exit the REPL loop
-			if ( str.matches( "^(q|quit|x|exit)" ) )
+			if ( isQuit( str ) )
 			{
 				break;
 			}
 
 			// Show the help message
-			if ( str.matches( "^(h|help)" ) )
+			if ( str.equals( "h" ) || str.equals( "help" ) )
 			{
 				System.out.println( help() );
 				continue;
 			}
 
-			// Display a hint, or the desired Fibonacci sequence
-			String hint = ValidatePositive.validateWithHints( str );
-			if ( hint != null )
+			// Display a hint, or the desired Fibonacci sequence.
+			// The lexer parses the number in the same pass, and flags numbers
+			// too large for a long, which are certainly past the upper limit.
+			String hint = lexer.lexLength( str );
+			if ( hint == QueryLexer.TOO_LARGE )
 			{
-				System.err.println( String.format( "%s %s", hint, instructions() ) );
+				System.err.println( maxLengthWarning() );
 				continue;
 			}
-
-			// Check an upper limit on the number of Fibonacci numbers we can calculate.
-			// Use the length of the string representation of this number to check.
-			// This is to prevent a huge number from crashing the Integer.parseInt() routine.
-			if ( str.length() > String.valueOf( MAX_SEQUENCE_CALCULATION_LENGTH ).length() )
+			if ( hint != null )
 			{
-				System.err.println( maxLengthWarning() );
+				System.err.println( String.format( "%s %s", hint, instructions() ) );
 				continue;
 			}
 
-			// Safely get the number of Fibs desired
-			int length = Integer.parseInt( str, 10 );
-			if ( length > MAX_SEQUENCE_CALCULATION_LENGTH )
+			// Check an upper limit on the number of Fibonacci numbers we can calculate
+			long length = lexer.first();
+			if ( length > maxSequenceLength )
 			{
 				System.err.println( maxLengthWarning() );
 				continue;
 			}
 
+			Metrics.Request request = Metrics.start();
 			try
 			{
 				// Display the Fibs, or write them to disk
 				if ( length <= MAX_SEQUENCE_DISPLAY_LENGTH )
 				{
-					writeFibSequence( length, out );
-					out.flush();
+					termCache.write( 0, length, console );
+
+					// Let the digits reach the console before anything else is printed
+					console.flush();
 					System.out.println();
 				}
 				else
 				{
 					// Write the file to the system PWD
-					String filename = String.format( OUTPUT_FILE_TEMPLATE, length );
+					String filename = String.format(
+						binaryOutput ? BINARY_OUTPUT_FILE_TEMPLATE : OUTPUT_FILE_TEMPLATE, length )
+						+ ( gzipOutput ? GZIP_SUFFIX : "" );
 					try (
-						OutputStreamWriter writer = new OutputStreamWriter(
-							new FileOutputStream( new File( filename ) ) )
+						WritableByteChannel channel = openOutput( filename, length )
 					)
 					{
-						writeFibSequence( length, writer );
-						System.out.println(
-							String.format( "Wrote the first %d Fibonacci numbers to %s.", length, filename )
-						);
+						if ( binaryOutput )
+						{
+							new BinarySequenceWriter().write( 0, length, channel );
+						}
+						else
+						{
+							writeFibSequence( length, channel );
+						}
+					}
+					catch ( IOException | RuntimeException e )
+					{
+						SequencePlanner.discard( Paths.get( filename ), e );
+						throw e;
 					}
+					System.out.println(
+						String.format( "Wrote the first %d Fibonacci numbers to %s.", length, filename )
+					);
 				}
 
 				// Continue
@@ -122,33 +243,235 @@ public class FibonacciREPL
 				System.err.println( "Unable to write the Fibonacci sequence. Reason: " + e.getMessage() );
 				System.out.println( instructions() );
 			}
+			finally
+			{
+				Metrics.finish( request );
+			}
+		}
+	}
+
+	/**
+	 * Return true if the input asks to end the REPL
+	 *
+	 * @param str The trimmed input line
+	 * @return True for q, quit, x or exit
+	 */
+	private static boolean isQuit( String str )
+	{
+		switch ( str )
+		{
+			case "q":
+			case "quit":
+			case "x":
+			case "exit":
+				return true;
+			default:
+				return false;
 		}
 	}
 
 	/**
-	 * Write the Fibonacci sequence up to length [length] to a Writer
-	 * which can either be a file or the system console.
+	 * Write the Fibonacci sequence up to length [length] as ASCII to a
+	 * channel which can either be a file or the system console.
 	 *
 	 * @param length The number of Fibonacci numbers to write
-	 * @param out The output Writer
-	 * @throws IOException Exception if the Writer is closed or invalid
+	 * @param channel The output channel
+	 * @throws IOException Exception if the channel is closed or invalid
 	 */
-	private static void writeFibSequence( int length, Writer out ) throws IOException
+	static void writeFibSequence( long length, WritableByteChannel channel ) throws IOException
 	{
-		FibonacciIterator it = new FibonacciIterator();
+		// Long sequences are dominated by formatting, which scales across cores
+		if ( length >= PARALLEL_SEQUENCE_LENGTH && ForkJoinPool.getCommonPoolParallelism() > 1 )
+		{
+			new ParallelSequenceWriter().write( length, channel );
+			return;
+		}
 
-		// A simple Omega(length) for-loop is needed because each number in the Fibonacci sequence
+		// A simple Omega(length) loop is needed because each number in the Fibonacci sequence
 		// must be printed once, so Omega(length) is the lowest bound we can do computationally.
 		// Note: This is not an O(length) runtime because the string length to print grows non-linearly.
-		for ( long i = 1; i <= length; i++ )
+		sequenceWriter.write( length, channel );
+	}
+
+	/**
+	 * Answer queries over TCP on the loopback interface until the process is stopped
+	 */
+	private static void serve()
+	{
+		try ( FibonacciServer server = new FibonacciServer( serverPort, termCache, maxSequenceLength ) )
+		{
+			System.out.println( String.format( "Serving Fibonacci numbers on port %d.", server.port() ) );
+			server.awaitClose();
+		}
+		catch ( IOException e )
+		{
+			System.err.println( "Unable to start the Fibonacci server. Reason: " + e.getMessage() );
+		}
+		catch ( InterruptedException e )
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Record metrics, expose them over JMX, and print them to stderr periodically
+	 */
+	private static void enableMetrics()
+	{
+		Metrics.setEnabled( true );
+		Metrics.watch( termCache );
+		try
+		{
+			Metrics.registerMBean();
+		}
+		catch ( JMException e )
+		{
+			System.err.println( "Unable to register the metrics MBean. Reason: " + e.getMessage() );
+		}
+		Metrics.dumpEvery( System.err, metricsPeriod, TimeUnit.SECONDS );
+
+		// Print the totals once more at exit, since runs are often shorter than the period
+		Runtime.getRuntime().addShutdownHook( new Thread( () -> System.err.print( Metrics.dump() ), "fibonacci-metrics-exit" ) );
+	}
+
+	/**
+	 * Answer every query in the batch file, one answer line per query line
+	 */
+	private static void batch()
+	{
+		try (
+			BufferedReader queries = batchFile.equals( STDIN_BATCH ) ?
+				new BufferedReader( new InputStreamReader( System.in, StandardCharsets.UTF_8 ) ) :
+				Files.newBufferedReader( Paths.get( batchFile ), StandardCharsets.UTF_8 )
+		)
+		{
+			// The whole batch is one sweep, so it is measured as one request
+			Metrics.Request request = Metrics.start();
+			try
+			{
+				new BatchQueryProcessor( maxSequenceLength ).process( queries, out );
+			}
+			finally
+			{
+				Metrics.finish( request );
+			}
+		}
+		catch ( IOException e )
+		{
+			System.err.println( "Unable to answer the batch queries. Reason: " + e.getMessage() );
+		}
+	}
+
+	/**
+	 * Open an output file written on a separate thread, compressing there if asked to.
+	 * The size of a text file is known exactly before it is generated, so the disk
+	 * space is checked and the file is extended up front, and progress is reported.
+	 *
+	 * @param filename The file to create or overwrite
+	 * @param length The number of Fibonacci numbers to be written
+	 * @return The channel to write the sequence to
+	 * @throws IOException If the file can't be opened or the disk is too full
+	 */
+	private static WritableByteChannel openOutput( String filename, long length ) throws IOException
+	{
+		Path path = Paths.get( filename );
+		boolean planned = !binaryOutput && !gzipOutput;
+		long bytes = planned ? SequencePlanner.sequenceBytes( 0, length ) : 0;
+		if ( planned )
+		{
+			SequencePlanner.checkFreeSpace( path, bytes );
+		}
+
+		FileChannel channel = FileChannel.open( path, CREATE, TRUNCATE_EXISTING, WRITE );
+		WritableByteChannel output;
+		try
+		{
+			if ( gzipOutput )
+			{
+				output = new CompressingChannel( channel );
+			}
+			else
+			{
+				if ( planned )
+				{
+					SequencePlanner.preallocate( channel, bytes );
+				}
+				output = new AsyncChannel( channel );
+			}
+		}
+		catch ( IOException e )
+		{
+			channel.close();
+			throw e;
+		}
+
+		// The binary format has no planned size to report against
+		return binaryOutput ? output : new ProgressChannel( output, 0, length, System.err, PROGRESS_INTERVAL_SECONDS, TimeUnit.SECONDS );
+	}
+
+	/**
+	 * Read the command line options
+	 *
+	 * @param args The command line arguments
+	 * @return True if the arguments are valid
+	 */
+	private static boolean parseArgs( String[] args )
+	{
+		for ( String arg : args )
 		{
-			out.write( it.next().toString() );
-			if ( i < length )
+			if ( arg.equals( BINARY_OPTION ) )
 			{
-				out.write( ' ' );
+				binaryOutput = true;
+			}
+			else if ( arg.equals( GZIP_OPTION ) )
+			{
+				gzipOutput = true;
+			}
+			else if ( arg.startsWith( SERVER_OPTION ) )
+			{
+				if ( lexer.lexLength( arg.substring( SERVER_OPTION.length() ) ) != null || lexer.first() > 0xFFFF )
+				{
+					return false;
+				}
+				serverPort = (int) lexer.first();
+			}
+			else if ( arg.startsWith( BATCH_OPTION ) && arg.length() > BATCH_OPTION.length() )
+			{
+				batchFile = arg.substring( BATCH_OPTION.length() );
+			}
+			else if ( arg.startsWith( METRICS_OPTION ) )
+			{
+				if ( lexer.lexLength( arg.substring( METRICS_OPTION.length() ) ) != null )
+				{
+					return false;
+				}
+				metricsPeriod = lexer.first();
+			}
+			else if ( arg.startsWith( MAX_LENGTH_OPTION ) )
+			{
+				if ( lexer.lexLength( arg.substring( MAX_LENGTH_OPTION.length() ) ) != null )
+				{
+					return false;
+				}
+				maxSequenceLength = lexer.first();
+			}
+			else
+			{
+				return false;
 			}
 		}
-		out.flush();
+		return true;
+	}
+
+	/**
+	 * Return the command line usage
+	 *
+	 * @return Usage string
+	 */
+	private static String usage()
+	{
+		return "Usage: java -jar Fibonacci.jar [" + MAX_LENGTH_OPTION + "N] [" + BINARY_OPTION + "] [" + GZIP_OPTION + "] ["
+			+ SERVER_OPTION + "PORT] [" + BATCH_OPTION + "FILE|-] [" + METRICS_OPTION + "SECONDS]";
 	}
 
 	/**
@@ -162,7 +485,7 @@ public class FibonacciREPL
 		return String.format(
 			"%s %s. %s",
 			"The max sequence length is",
-			MAX_SEQUENCE_CALCULATION_LENGTH,
+			maxSequenceLength,
 			instructions()
 		);
 	}
@@ -180,7 +503,7 @@ public class FibonacciREPL
 				Arrays.asList(
 					"Quit by entering 'q' or 'quit'. See this message again with 'h' or 'help'.",
 					"The maximum *displayable* number of Fibonacci numbers is " + MAX_SEQUENCE_DISPLAY_LENGTH + ".",
-					"Past this, the sequence will be written to disk up to " + MAX_SEQUENCE_CALCULATION_LENGTH + " numbers.",
+					"Past this, the sequence will be written to disk up to " + maxSequenceLength + " numbers.",
 					"Please enter the desired number of Fibonacci numbers:"
 				)
 			);
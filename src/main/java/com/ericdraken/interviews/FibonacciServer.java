@@ -0,0 +1,321 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A long-running TCP server that answers Fibonacci queries, so clients
+ * pay for JVM startup and JIT warmup once instead of on every request.
+ * Every connection shares one warm TermCache. Each connection runs on a
+ * virtual thread where the JVM has them, and on a pooled platform thread
+ * otherwise.
+ *
+ * The protocol is line-based ASCII. Each request line gets one response line:
+ *   term n       F(n)
+ *   range a..b   F(a) to F(b) inclusive, separated by spaces, streamed in chunks
+ *   quit         closes the connection
+ * Invalid requests, and indices past the configured maximum, are
+ * answered with "ERR " and a hint.
+ */
+public class FibonacciServer implements Closeable
+{
+	// Ranges up to this length go through the cache, like the console display
+	private final static long MAX_CACHED_RANGE = 3_000;
+
+	// Requests are short, so anything longer is refused
+	private final static int MAX_LINE_LENGTH = 256;
+
+	// Request prefixes, each followed by its query
+	private final static String TERM = "term ";
+
+	private final static String RANGE = "range ";
+
+	// F(n) has about n / 5 digits, so this keeps a single term to about 200 KB
+	// and well under a second of work in the shared JVM
+	public final static long DEFAULT_MAX_INDEX = 1_000_000;
+
+	// Streaming buffer for uncached ranges, per request
+	private final static int RANGE_BUFFER_SIZE = 1 << 16;
+
+	private final ServerSocketChannel server;
+
+	private final ExecutorService executor;
+
+	private final TermCache cache;
+
+	private final long maxRangeLength;
+
+	private final long maxIndex;
+
+	private final Thread acceptor;
+
+	/**
+	 * Listen on a loopback port
+	 *
+	 * @param port The port, or 0 for any free port
+	 * @param cache The cache shared by all connections
+	 * @param maxRangeLength The longest range a request may ask for
+	 * @throws IOException If the port can't be bound
+	 */
+	public FibonacciServer( int port, TermCache cache, long maxRangeLength ) throws IOException
+	{
+		this( new InetSocketAddress( InetAddress.getLoopbackAddress(), port ), cache, maxRangeLength, DEFAULT_MAX_INDEX );
+	}
+
+	/**
+	 * Listen on an address and start accepting connections
+	 *
+	 * @param address The address to bind
+	 * @param cache The cache shared by all connections
+	 * @param maxRangeLength The longest range a request may ask for
+	 * @param maxIndex The largest index a request may ask for
+	 * @throws IOException If the address can't be bound
+	 */
+	public FibonacciServer( InetSocketAddress address, TermCache cache, long maxRangeLength, long maxIndex ) throws IOException
+	{
+		this.cache = cache;
+		this.maxRangeLength = maxRangeLength;
+		this.maxIndex = maxIndex;
+		this.executor = newConnectionExecutor();
+		this.server = ServerSocketChannel.open().bind( address );
+
+		acceptor = new Thread( this::accept, "fibonacci-acceptor" );
+		acceptor.start();
+	}
+
+	/**
+	 * Return the port the server is listening on
+	 *
+	 * @return The bound port
+	 * @throws IOException If the server is closed
+	 */
+	public int port() throws IOException
+	{
+		return ( (InetSocketAddress) server.getLocalAddress() ).getPort();
+	}
+
+	/**
+	 * Block until the server is closed
+	 *
+	 * @throws InterruptedException If interrupted while waiting
+	 */
+	public void awaitClose() throws InterruptedException
+	{
+		acceptor.join();
+	}
+
+	/**
+	 * Stop accepting connections and stop the connection threads
+	 *
+	 * @throws IOException If the listening socket can't be closed
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		server.close();
+		executor.shutdownNow();
+	}
+
+	/**
+	 * The accept loop, run on its own thread
+	 */
+	private void accept()
+	{
+		try
+		{
+			while ( true )
+			{
+				SocketChannel client = server.accept();
+				executor.execute( () -> serve( client ) );
+			}
+		}
+		catch ( AsynchronousCloseException e )
+		{
+			// close() was called
+		}
+		catch ( IOException e )
+		{
+			System.err.println( "The Fibonacci server stopped. Reason: " + e.getMessage() );
+		}
+	}
+
+	/**
+	 * Answer requests from one client until it quits or disconnects
+	 */
+	private void serve( SocketChannel client )
+	{
+		ByteBuffer in = ByteBuffer.allocate( MAX_LINE_LENGTH );
+		QueryLexer lexer = new QueryLexer();
+		try ( SocketChannel channel = client )
+		{
+			while ( true )
+			{
+				String line = readLine( channel, in );
+				if ( line == null || line.equals( "quit" ) )
+				{
+					return;
+				}
+				Metrics.Request request = Metrics.start();
+				try
+				{
+					respond( line, lexer, channel );
+				}
+				finally
+				{
+					Metrics.finish( request );
+				}
+			}
+		}
+		catch ( IOException e )
+		{
+			// The client went away, nothing to answer
+		}
+	}
+
+	/**
+	 * Answer a single request line
+	 */
+	private void respond( String line, QueryLexer lexer, SocketChannel channel ) throws IOException
+	{
+		if ( line.startsWith( TERM ) )
+		{
+			String hint = lexer.lex( line.substring( TERM.length() ) );
+			if ( hint != null || lexer.kind() != QueryLexer.Kind.NUMBER )
+			{
+				error( hint != null ? hint : "The index must be a single non-negative integer.", channel );
+				return;
+			}
+			if ( lexer.first() > maxIndex )
+			{
+				error( maxIndexHint(), channel );
+				return;
+			}
+			ChannelSequenceWriter.writeFully( ByteBuffer.wrap( cache.get( lexer.first() ) ), channel );
+		}
+		else if ( line.startsWith( RANGE ) )
+		{
+			String hint = lexer.lex( line.substring( RANGE.length() ) );
+			if ( hint != null || lexer.kind() != QueryLexer.Kind.RANGE )
+			{
+				error( hint != null ? hint : "A range is two non-negative integers a..b with a <= b.", channel );
+				return;
+			}
+			long from = lexer.first();
+			long to = lexer.last();
+			if ( to > maxIndex )
+			{
+				error( maxIndexHint(), channel );
+				return;
+			}
+			if ( to - from >= maxRangeLength )
+			{
+				error( "The max range length is " + maxRangeLength + ".", channel );
+				return;
+			}
+
+			long count = to - from + 1;
+			if ( count <= MAX_CACHED_RANGE )
+			{
+				cache.write( from, count, channel );
+			}
+			else
+			{
+				new ChannelSequenceWriter( RANGE_BUFFER_SIZE ).write( from, count, channel );
+			}
+		}
+		else
+		{
+			error( "Unknown request. Use 'term n', 'range a..b' or 'quit'.", channel );
+			return;
+		}
+		ChannelSequenceWriter.writeFully( ByteBuffer.wrap( new byte[]{ '\n' } ), channel );
+	}
+
+	/**
+	 * Return the hint for an index past the limit
+	 */
+	private String maxIndexHint()
+	{
+		return "The max index is " + maxIndex + ".";
+	}
+
+	/**
+	 * Answer with an error line
+	 */
+	private static void error( String hint, SocketChannel channel ) throws IOException
+	{
+		byte[] bytes = ( "ERR " + hint + "\n" ).getBytes( StandardCharsets.US_ASCII );
+		ChannelSequenceWriter.writeFully( ByteBuffer.wrap( bytes ), channel );
+	}
+
+	/**
+	 * Read one line without its terminator, or null at the end of the stream.
+	 * The buffer is kept in write mode between calls.
+	 */
+	private static String readLine( SocketChannel channel, ByteBuffer in ) throws IOException
+	{
+		int scanned = 0;
+		while ( true )
+		{
+			for ( int i = scanned; i < in.position(); i++ )
+			{
+				if ( in.get( i ) == '\n' )
+				{
+					int end = i > 0 && in.get( i - 1 ) == '\r' ? i - 1 : i;
+					String line = new String( in.array(), 0, end, StandardCharsets.US_ASCII ).trim();
+
+					// Keep whatever follows the line for the next call
+					in.flip();
+					in.position( i + 1 );
+					in.compact();
+					return line;
+				}
+			}
+			scanned = in.position();
+
+			if ( !in.hasRemaining() )
+			{
+				throw new IOException( "Request line too long" );
+			}
+			if ( channel.read( in ) < 0 )
+			{
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Use a virtual thread per connection where the JVM has them (Java 21+),
+	 * and a pool of daemon platform threads otherwise
+	 */
+	private static ExecutorService newConnectionExecutor()
+	{
+		try
+		{
+			return (ExecutorService) Executors.class.getMethod( "newVirtualThreadPerTaskExecutor" ).invoke( null );
+		}
+		catch ( ReflectiveOperationException e )
+		{
+			ThreadFactory daemons = runnable -> {
+				Thread thread = new Thread( runnable, "fibonacci-connection" );
+				thread.setDaemon( true );
+				return thread;
+			};
+			return Executors.newCachedThreadPool( daemons );
+		}
+	}
+}
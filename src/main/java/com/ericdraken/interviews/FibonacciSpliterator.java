@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import java.math.BigInteger;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A splittable source of the Fibs F(from) to F(to - 1) for parallel
+ * streams. Splitting hands the first half to a new spliterator and keeps
+ * the second half, which seeds its starting pair directly by fast doubling
+ * the first time it is traversed. Each half then walks its own range with
+ * additions, so no thread waits on another and nothing is buffered.
+ */
+public class FibonacciSpliterator implements Spliterator<BigInteger>
+{
+	// Below this many Fibs the cost of seeding a half isn't recovered
+	private final static long MIN_SPLIT_SIZE = 1_000;
+
+	// The index of the next Fib to return
+	private long from;
+
+	// The index just past the last Fib to return
+	private final long to;
+
+	// ( F(from), F(from+1) ), or null until the first traversal
+	private BigInteger a;
+	private BigInteger b;
+
+	/**
+	 * Cover the index range [from, to)
+	 *
+	 * @param from The index of the first Fib
+	 * @param to The index just past the last Fib
+	 * @throws IllegalArgumentException If from is negative or the range is backwards
+	 */
+	public FibonacciSpliterator( long from, long to )
+	{
+		this( from, to, null, null );
+		if ( from < 0 || to < from )
+		{
+			throw new IllegalArgumentException( "Invalid Fibonacci index range: [" + from + ", " + to + ")" );
+		}
+	}
+
+	/**
+	 * Cover a range, with its starting pair if already known
+	 */
+	private FibonacciSpliterator( long from, long to, BigInteger a, BigInteger b )
+	{
+		this.from = from;
+		this.to = to;
+		this.a = a;
+		this.b = b;
+	}
+
+	/**
+	 * Pass the next Fib to the action, if any remain
+	 *
+	 * @param action The consumer of the Fib
+	 * @return True if a Fib was passed
+	 */
+	@Override
+	public boolean tryAdvance( Consumer<? super BigInteger> action )
+	{
+		if ( from >= to )
+		{
+			return false;
+		}
+		seed();
+		action.accept( shift() );
+		return true;
+	}
+
+	/**
+	 * Pass every remaining Fib to the action in order
+	 *
+	 * @param action The consumer of the Fibs
+	 */
+	@Override
+	public void forEachRemaining( Consumer<? super BigInteger> action )
+	{
+		if ( from >= to )
+		{
+			return;
+		}
+		seed();
+		while ( from < to )
+		{
+			action.accept( shift() );
+		}
+	}
+
+	/**
+	 * Split off the first half of the remaining range
+	 *
+	 * @return The first half, or null if the range is too small to split
+	 */
+	@Override
+	public Spliterator<BigInteger> trySplit()
+	{
+		long size = to - from;
+		if ( size < MIN_SPLIT_SIZE * 2 )
+		{
+			return null;
+		}
+
+		// The prefix keeps any pair already computed, and this half seeds lazily
+		long mid = from + size / 2;
+		FibonacciSpliterator prefix = new FibonacciSpliterator( from, mid, a, b );
+		from = mid;
+		a = null;
+		b = null;
+		return prefix;
+	}
+
+	/**
+	 * Return the exact number of Fibs remaining
+	 *
+	 * @return The remaining count
+	 */
+	@Override
+	public long estimateSize()
+	{
+		return to - from;
+	}
+
+	/**
+	 * The range is exactly sized, in order, and never changes
+	 *
+	 * @return The spliterator characteristics
+	 */
+	@Override
+	public int characteristics()
+	{
+		return SIZED | SUBSIZED | ORDERED | IMMUTABLE | NONNULL;
+	}
+
+	/**
+	 * Compute the starting pair by fast doubling if it isn't known yet
+	 */
+	private void seed()
+	{
+		if ( a == null )
+		{
+			BigInteger[] pair = Fibonacci.get( from );
+			a = pair[0];
+			b = pair[1];
+		}
+	}
+
+	/**
+	 * Return the current Fib and shift the pair forward
+	 */
+	private BigInteger shift()
+	{
+		BigInteger current = a;
+		a = b;
+		b = current.add( b );
+		from++;
+		return current;
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import java.math.BigInteger;
+import java.util.Iterator;
+
+import static com.ericdraken.interviews.LongFibonacciIterator.MAX_INDEX;
+
+/**
+ * This is an unbounded Fibonacci iterator that stays on primitive longs
+ * for F(0) to F(92) and only switches to BigInteger arithmetic when the
+ * sequence first overflows a long. Callers that check hasNextLong() and
+ * call nextLong() produce no garbage for the small Fibs, and next()
+ * keeps working for the whole sequence.
+ */
+public class HybridFibonacciIterator implements Iterator<BigInteger>
+{
+	// Primitive state, used up to F(91)
+	private long la = 0;
+	private long lb = 1;
+
+	// Big state, seeded with F(92) and F(93) once the longs would overflow
+	private BigInteger a = null;
+	private BigInteger b = null;
+
+	// The index of the Fib the next call to next() or nextLong() returns
+	private long position = 0;
+
+	/**
+	 * Returns true while the next Fib fits in a long
+	 *
+	 * @return True if nextLong() can be called
+	 */
+	public boolean hasNextLong()
+	{
+		return position <= MAX_INDEX;
+	}
+
+	/**
+	 * Returns the next number in the Fibonacci sequence as a long
+	 *
+	 * @return The next number
+	 * @throws ArithmeticException If the next Fib overflows a long
+	 */
+	public long nextLong()
+	{
+		if ( position > MAX_INDEX )
+		{
+			throw new ArithmeticException( "F(" + position + ") overflows a long" );
+		}
+
+		// F(92) is returned from the big state
+		if ( a != null )
+		{
+			return next().longValue();
+		}
+
+		long current = la;
+		position++;
+		if ( position < MAX_INDEX )
+		{
+			la = lb;
+			lb = current + lb;
+		}
+		else
+		{
+			// F(93) would overflow, so promote to big arithmetic
+			a = BigInteger.valueOf( lb );
+			b = a.add( BigInteger.valueOf( current ) );
+		}
+		return current;
+	}
+
+	/**
+	 * Returns the next number in the Fibonacci sequence.
+	 *
+	 * @return The next number
+	 */
+	@Override
+	public BigInteger next()
+	{
+		if ( a == null )
+		{
+			return BigInteger.valueOf( nextLong() );
+		}
+
+		BigInteger current = a;
+
+		// Shift a and b forward
+		a = b;
+		b = current.add( b );
+		position++;
+
+		return current;
+	}
+
+	/**
+	 * This will always return true for the unbounded Fibonacci sequence
+	 *
+	 * @return True, always
+	 */
+	@Override
+	public boolean hasNext()
+	{
+		return true;
+	}
+
+	/**
+	 * This is not supported
+	 */
+	@Override
+	public void remove()
+	{
+		throw new UnsupportedOperationException( "Removal of Fibonacci numbers generated on the fly is not supported" );
+	}
+
+	/**
+	 * Return the index of the Fib the next call to next() returns
+	 *
+	 * @return The current zero-based position
+	 */
+	public long position()
+	{
+		return position;
+	}
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * This is a sequential Fibonacci generator that keeps two reusable limb
+ * arrays and adds them in place, so stepping through the sequence allocates
+ * nothing once the arrays are big enough. The limbs are stored in base 10^9
+ * rather than base 2^32, which makes writing the decimal digits a linear
+ * copy instead of a radix conversion. The current Fib is exposed through
+ * read-only accessors or written straight into a byte buffer.
+ *
+ * Note: This is not thread safe. Use one generator per thread.
+ */
+public class InPlaceFibonacciGenerator implements SequenceGenerator
+{
+	// Each limb holds nine decimal digits
+	final static int LIMB_BASE = 1_000_000_000;
+
+	final static int LIMB_DIGITS = 9;
+
+	// Little-endian limbs of F(position) and F(position + 1)
+	private int[] a;
+	private int[] b;
+
+	private int aLength;
+	private int bLength;
+
+	private long position;
+
+	/**
+	 * Start the sequence at F(0)
+	 */
+	public InPlaceFibonacciGenerator()
+	{
+		this( 0 );
+	}
+
+	/**
+	 * Start the sequence at F(start), seeded directly with fast doubling
+	 *
+	 * @param start The index of the first current Fib
+	 * @throws IllegalArgumentException If start is negative
+	 */
+	public InPlaceFibonacciGenerator( long start )
+	{
+		seek( start );
+	}
+
+	/**
+	 * Jump to index n without generating the earlier Fibs.
+	 * This allocates, unlike advance().
+	 *
+	 * @param n The zero-based index to jump to
+	 * @throws IllegalArgumentException If n is negative
+	 */
+	@Override
+	public void seek( long n )
+	{
+		BigInteger[] pair = Fibonacci.get( n );
+		seed( n, pair[0], pair[1] );
+	}
+
+	/**
+	 * Continue the sequence from a known pair of consecutive Fibs.
+	 * This allocates, unlike advance().
+	 *
+	 * @param n The zero-based index of fn
+	 * @param fn F(n)
+	 * @param fn1 F(n+1)
+	 */
+	public void seed( long n, BigInteger fn, BigInteger fn1 )
+	{
+		DecimalFormatter formatter = new DecimalFormatter();
+		b = toLimbs( formatter.toBytes( fn1 ) );
+		bLength = length( b );
+		a = Arrays.copyOf( toLimbs( formatter.toBytes( fn ) ), b.length );
+		aLength = length( a );
+		position = n;
+	}
+
+	/**
+	 * Step to the next Fib by adding F(position + 1) into the
+	 * array of F(position) and swapping the arrays.
+	 * The arrays only grow when the sum needs another limb.
+	 */
+	@Override
+	public void advance()
+	{
+		// The sum can have at most one more limb than the larger addend
+		if ( a.length <= bLength )
+		{
+			a = Arrays.copyOf( a, Math.max( bLength + 1, a.length * 2 ) );
+		}
+
+		int carry = 0;
+		int i = 0;
+		for ( ; i < bLength; i++ )
+		{
+			int sum = ( i < aLength ? a[i] : 0 ) + b[i] + carry;
+			if ( sum >= LIMB_BASE )
+			{
+				sum -= LIMB_BASE;
+				carry = 1;
+			}
+			else
+			{
+				carry = 0;
+			}
+			a[i] = sum;
+		}
+		if ( carry != 0 )
+		{
+			a[i++] = carry;
+		}
+
+		// a now holds F(position + 2)
+		int[] sum = a;
+		a = b;
+		aLength = bLength;
+		b = sum;
+		bLength = i;
+		position++;
+	}
+
+	/**
+	 * Return the index of the current Fib
+	 *
+	 * @return The current zero-based position
+	 */
+	@Override
+	public long position()
+	{
+		return position;
+	}
+
+	/**
+	 * Return the number of base 10^9 limbs of the current Fib
+	 *
+	 * @return The limb count, at least 1
+	 */
+	public int limbCount()
+	{
+		return aLength;
+	}
+
+	/**
+	 * Return a base 10^9 limb of the current Fib, least significant first
+	 *
+	 * @param i The limb index
+	 * @return The limb value between 0 and 999,999,999
+	 */
+	public int limb( int i )
+	{
+		if ( i < 0 || i >= aLength )
+		{
+			throw new IndexOutOfBoundsException( "Limb " + i + " of " + aLength );
+		}
+		return a[i];
+	}
+
+	/**
+	 * Return the exact number of decimal digits of the current Fib
+	 *
+	 * @return The digit count, at least 1
+	 */
+	@Override
+	public int digitCount()
+	{
+		int digits = 1;
+		for ( int top = a[aLength - 1] / 10; top > 0; top /= 10 )
+		{
+			digits++;
+		}
+		return ( aLength - 1 ) * LIMB_DIGITS + digits;
+	}
+
+	/**
+	 * Return the exact number of decimal digits of the last of the next
+	 * [count] Fibs, which is the longest of them, from Binet's formula
+	 *
+	 * @param count The number of Fibs to be written, at least 1
+	 * @return The digit count of F(position() + count - 1)
+	 */
+	@Override
+	public int maxDigits( long count )
+	{
+		return (int) SequencePlanner.digits( position + count - 1 );
+	}
+
+	/**
+	 * Write the decimal digits of the current Fib into a byte buffer
+	 *
+	 * @param dst The destination buffer with at least digitCount() bytes free
+	 * @param offset The position in dst to start writing at
+	 * @return The position in dst after the last digit written
+	 */
+	@Override
+	public int writeDigits( byte[] dst, int offset )
+	{
+		// The most significant limb is not zero-padded
+		offset = DecimalFormatter.format( a[aLength - 1], dst, offset );
+		for ( int i = aLength - 2; i >= 0; i-- )
+		{
+			int limb = a[i];
+			for ( int j = offset + LIMB_DIGITS - 1; j >= offset; j-- )
+			{
+				dst[j] = (byte) ( '0' + limb % 10 );
+				limb /= 10;
+			}
+			offset += LIMB_DIGITS;
+		}
+		return offset;
+	}
+
+	/**
+	 * Return a copy of the current Fib. This allocates and is meant
+	 * for interoperability, not for the generation loop.
+	 *
+	 * @return The current Fib
+	 */
+	@Override
+	public BigInteger toBigInteger()
+	{
+		byte[] digits = new byte[digitCount()];
+		writeDigits( digits, 0 );
+		return new BigInteger( new String( digits, StandardCharsets.US_ASCII ) );
+	}
+
+	/**
+	 * Parse ASCII decimal digits into little-endian base 10^9 limbs
+	 * with one spare limb for the next carry
+	 */
+	static int[] toLimbs( byte[] digits )
+	{
+		int[] limbs = new int[( digits.length + LIMB_DIGITS - 1 ) / LIMB_DIGITS + 1];
+		int i = 0;
+		for ( int end = digits.length; end > 0; end -= LIMB_DIGITS )
+		{
+			int limb = 0;
+			for ( int j = Math.max( 0, end - LIMB_DIGITS ); j < end; j++ )
+			{
+				limb = limb * 10 + ( digits[j] - '0' );
+			}
+			limbs[i++] = limb;
+		}
+		return limbs;
+	}
+
+	/**
+	 * Return the number of significant limbs, at least 1
+	 */
+	static int length( int[] limbs )
+	{
+		int length = limbs.length;
+		while ( length > 1 && limbs[length - 1] == 0 )
+		{
+			length--;
+		}
+		return length;
+	}
+}
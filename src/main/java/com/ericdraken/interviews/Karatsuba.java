@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import java.math.BigInteger;
+
+/**
+ * The splitting and recombination steps of Karatsuba multiplication,
+ * shared by the backends that recurse on halves themselves:
+ *
+ *   a * b = z2 * 2^2h + ( (a0 + a1)(b0 + b1) - z2 - z0 ) * 2^h + z0
+ *
+ * where a = a1 * 2^h + a0, b = b1 * 2^h + b0, z2 = a1 * b1 and z0 = a0 * b0.
+ * The numbers must not be negative.
+ */
+final class Karatsuba
+{
+	private Karatsuba()
+	{
+		// Static utility class
+	}
+
+	/**
+	 * Return the split point in bits for two factors, a multiple of 32 so the halves are cheap to cut
+	 *
+	 * @param a The first factor
+	 * @param b The second factor
+	 * @return h, about half the larger bit length
+	 */
+	static int half( BigInteger a, BigInteger b )
+	{
+		return ( Math.max( a.bitLength(), b.bitLength() ) / 2 + 31 ) & ~31;
+	}
+
+	/**
+	 * Return the lower h bits of a number
+	 *
+	 * @param x The number
+	 * @param h The split point in bits
+	 * @return x mod 2^h
+	 */
+	static BigInteger low( BigInteger x, int h )
+	{
+		return x.bitLength() <= h ? x : x.subtract( x.shiftRight( h ).shiftLeft( h ) );
+	}
+
+	/**
+	 * Return the bits of a number above the split point
+	 *
+	 * @param x The number
+	 * @param h The split point in bits
+	 * @return x / 2^h
+	 */
+	static BigInteger high( BigInteger x, int h )
+	{
+		return x.shiftRight( h );
+	}
+
+	/**
+	 * Combine the three half products into the full product
+	 *
+	 * @param z0 The product of the low halves
+	 * @param z1 The product of the sums of the halves
+	 * @param z2 The product of the high halves
+	 * @param h The split point in bits
+	 * @return The full product
+	 */
+	static BigInteger combine( BigInteger z0, BigInteger z1, BigInteger z2, int h )
+	{
+		return z2.shiftLeft( 2 * h ).add( z1.subtract( z2 ).subtract( z0 ).shiftLeft( h ) ).add( z0 );
+	}
+}
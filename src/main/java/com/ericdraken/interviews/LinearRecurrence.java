@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A k-term linear recurrence with constant coefficients
+ *
+ *   a(n) = c[0]*a(n-1) + c[1]*a(n-2) + ... + c[k-1]*a(n-k)
+ *
+ * seeded with a(0) to a(k-1). Fibonacci, Lucas, Tribonacci and weighted
+ * variants are all instances, and share one iterator, one stream and
+ * one text output path instead of a hand-copied loop each.
+ *
+ * Random access uses Kitamasa's method: x^n is reduced modulo the
+ * characteristic polynomial x^k - c[0]*x^(k-1) - ... - c[k-1] by
+ * square-and-multiply, which takes O(k^2 log n) big multiplications,
+ * and a(n) is the reduced polynomial applied to the seeds.
+ * REF: https://cp-algorithms.com/algebra/linear-recurrence.html
+ *
+ * Instances are immutable and thread safe.
+ */
+public final class LinearRecurrence
+{
+	// F(n) = F(n-1) + F(n-2), from 0 1
+	public final static LinearRecurrence FIBONACCI = new LinearRecurrence( new long[]{ 1, 1 }, new long[]{ 0, 1 } );
+
+	// L(n) = L(n-1) + L(n-2), from 2 1
+	public final static LinearRecurrence LUCAS = new LinearRecurrence( new long[]{ 1, 1 }, new long[]{ 2, 1 } );
+
+	// T(n) = T(n-1) + T(n-2) + T(n-3), from 0 0 1
+	public final static LinearRecurrence TRIBONACCI = new LinearRecurrence( new long[]{ 1, 1, 1 }, new long[]{ 0, 0, 1 } );
+
+	// P(n) = 2*P(n-1) + P(n-2), from 0 1
+	public final static LinearRecurrence PELL = new LinearRecurrence( new long[]{ 2, 1 }, new long[]{ 0, 1 } );
+
+	// Coefficients of a(n-1) to a(n-k)
+	private final BigInteger[] coefficients;
+
+	// a(0) to a(k-1)
+	private final BigInteger[] seeds;
+
+	// The sum of the coefficients, or -1 if any is negative
+	private final long coefficientSum;
+
+	private final boolean nonNegativeSeeds;
+
+	/**
+	 * Define a recurrence by its coefficients and seeds
+	 *
+	 * @param coefficients The multipliers of a(n-1) to a(n-k)
+	 * @param seeds The first k terms a(0) to a(k-1)
+	 * @throws IllegalArgumentException If there are no coefficients or the counts differ
+	 */
+	public LinearRecurrence( long[] coefficients, long[] seeds )
+	{
+		if ( coefficients.length == 0 || coefficients.length != seeds.length )
+		{
+			throw new IllegalArgumentException( "A recurrence needs k >= 1 coefficients and k seeds, not " +
+				coefficients.length + " and " + seeds.length );
+		}
+
+		int k = coefficients.length;
+		this.coefficients = new BigInteger[k];
+		this.seeds = new BigInteger[k];
+		long sum = 0;
+		boolean nonNegative = true;
+		for ( int i = 0; i < k; i++ )
+		{
+			this.coefficients[i] = BigInteger.valueOf( coefficients[i] );
+			this.seeds[i] = BigInteger.valueOf( seeds[i] );
+			sum = coefficients[i] < 0 || sum < 0 ? -1 : saturatedAdd( sum, coefficients[i] );
+			nonNegative &= seeds[i] >= 0;
+		}
+		this.coefficientSum = sum;
+		this.nonNegativeSeeds = nonNegative;
+	}
+
+	/**
+	 * Return the number of terms each term depends on
+	 *
+	 * @return The order k
+	 */
+	public int order()
+	{
+		return coefficients.length;
+	}
+
+	/**
+	 * Return the single term a(n)
+	 *
+	 * @param n The zero-based index into the sequence
+	 * @return a(n)
+	 * @throws IllegalArgumentException If n is negative
+	 */
+	public BigInteger term( long n )
+	{
+		return window( n )[0];
+	}
+
+	/**
+	 * Return the k consecutive terms a(n) to a(n+k-1), which are
+	 * enough to continue the sequence from n with additions alone
+	 *
+	 * @param n The zero-based index of the first term
+	 * @return An array of { a(n), ..., a(n+k-1) }
+	 * @throws IllegalArgumentException If n is negative
+	 */
+	public BigInteger[] window( long n )
+	{
+		if ( n < 0 )
+		{
+			throw new IllegalArgumentException( "The sequence index must not be negative: " + n );
+		}
+
+		if ( n == 0 )
+		{
+			return seeds.clone();
+		}
+		int k = order();
+		BigInteger[] window = new BigInteger[k];
+
+		// x^n mod the characteristic polynomial, then x^(n+1) and so on by shifting
+		BigInteger[] power = power( n );
+		for ( int j = 0; j < k; j++ )
+		{
+			window[j] = dot( power, seeds );
+			if ( j < k - 1 )
+			{
+				power = timesX( power );
+			}
+		}
+		return window;
+	}
+
+	/**
+	 * Return a generator over base 10^9 limbs starting at a(start),
+	 * which steps forward without allocating
+	 *
+	 * @param start The index of the first current term
+	 * @return The generator
+	 * @throws IllegalArgumentException If start is negative, or the recurrence
+	 *                                  can produce negative terms or overflow a limb
+	 */
+	public SequenceGenerator generator( long start )
+	{
+		return new RecurrenceGenerator( this, start );
+	}
+
+	/**
+	 * Return an endless iterator starting at a(start)
+	 *
+	 * @param start The index of the first term returned
+	 * @return The iterator
+	 * @throws IllegalArgumentException If start is negative
+	 */
+	public Iterator<BigInteger> iterator( long start )
+	{
+		return Spliterators.iterator( new RecurrenceSpliterator( this, start, Long.MAX_VALUE ) );
+	}
+
+	/**
+	 * Return a sequential stream of the terms a(from) to a(to - 1). Call
+	 * parallel() on it to generate the range on all cores, with each
+	 * split seeded directly at its first index.
+	 *
+	 * @param from The index of the first term
+	 * @param to The index just past the last term
+	 * @return The ordered stream of terms
+	 * @throws IllegalArgumentException If from is negative or the range is backwards
+	 */
+	public Stream<BigInteger> stream( long from, long to )
+	{
+		return StreamSupport.stream( new RecurrenceSpliterator( this, from, to ), false );
+	}
+
+	/**
+	 * Return the next term after a window of the previous k terms
+	 *
+	 * @param window a(n-k) to a(n-1) in a ring starting at [head]
+	 * @param head The ring index of a(n-k)
+	 * @return a(n)
+	 */
+	BigInteger next( BigInteger[] window, int head )
+	{
+		int k = order();
+		BigInteger sum = BigInteger.ZERO;
+		for ( int i = 0; i < k; i++ )
+		{
+			// c[i] multiplies a(n-1-i), which is i places back from the newest
+			sum = sum.add( coefficients[i].multiply( window[( head + k - 1 - i ) % k] ) );
+		}
+		return sum;
+	}
+
+	/**
+	 * Return the sum of the coefficients, or -1 if any is negative
+	 */
+	long coefficientSum()
+	{
+		return coefficientSum;
+	}
+
+	/**
+	 * Return true if the seeds are all non-negative
+	 */
+	boolean hasNonNegativeSeeds()
+	{
+		return nonNegativeSeeds;
+	}
+
+	/**
+	 * Return coefficient c[i] as a long
+	 */
+	long coefficient( int i )
+	{
+		return coefficients[i].longValue();
+	}
+
+	/**
+	 * Return x^n reduced modulo the characteristic polynomial,
+	 * as its k coefficients of x^0 to x^(k-1)
+	 */
+	private BigInteger[] power( long n )
+	{
+		int k = order();
+		BigInteger[] result = new BigInteger[k];
+		Arrays.fill( result, BigInteger.ZERO );
+		result[0] = BigInteger.ONE;
+
+		// Consume the bits of n from the most significant
+		for ( int bit = 63 - Long.numberOfLeadingZeros( n ); bit >= 0; bit-- )
+		{
+			result = multiply( result, result );
+			if ( ( ( n >>> bit ) & 1 ) != 0 )
+			{
+				result = timesX( result );
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Multiply two reduced polynomials and reduce the product, in O(k^2)
+	 */
+	private BigInteger[] multiply( BigInteger[] p, BigInteger[] q )
+	{
+		int k = order();
+		BigInteger[] product = new BigInteger[2 * k - 1];
+		Arrays.fill( product, BigInteger.ZERO );
+		for ( int i = 0; i < k; i++ )
+		{
+			if ( p[i].signum() == 0 )
+			{
+				continue;
+			}
+			for ( int j = 0; j < k; j++ )
+			{
+				product[i + j] = product[i + j].add( p[i].multiply( q[j] ) );
+			}
+		}
+
+		// Replace each x^d, from the top down, with x^(d-k) * ( c[0]*x^(k-1) + ... + c[k-1] )
+		for ( int d = 2 * k - 2; d >= k; d-- )
+		{
+			BigInteger top = product[d];
+			if ( top.signum() == 0 )
+			{
+				continue;
+			}
+			for ( int i = 0; i < k; i++ )
+			{
+				product[d - 1 - i] = product[d - 1 - i].add( coefficients[i].multiply( top ) );
+			}
+		}
+		return Arrays.copyOf( product, k );
+	}
+
+	/**
+	 * Multiply a reduced polynomial by x and reduce it, in O(k)
+	 */
+	private BigInteger[] timesX( BigInteger[] p )
+	{
+		int k = order();
+		BigInteger top = p[k - 1];
+		BigInteger[] shifted = new BigInteger[k];
+		shifted[0] = BigInteger.ZERO;
+		System.arraycopy( p, 0, shifted, 1, k - 1 );
+
+		// x^k = c[0]*x^(k-1) + ... + c[k-1]
+		for ( int i = 0; i < k; i++ )
+		{
+			shifted[k - 1 - i] = shifted[k - 1 - i].add( coefficients[i].multiply( top ) );
+		}
+		return shifted;
+	}
+
+	/**
+	 * Return the sum of p[i] * q[i]
+	 */
+	private static BigInteger dot( BigInteger[] p, BigInteger[] q )
+	{
+		BigInteger sum = BigInteger.ZERO;
+		for ( int i = 0; i < p.length; i++ )
+		{
+			sum = sum.add( p[i].multiply( q[i] ) );
+		}
+		return sum;
+	}
+
+	/**
+	 * Add two non-negative longs, capping at Long.MAX_VALUE
+	 */
+	private static long saturatedAdd( long a, long b )
+	{
+		long sum = a + b;
+		return sum < 0 ? Long.MAX_VALUE : sum;
+	}
+}
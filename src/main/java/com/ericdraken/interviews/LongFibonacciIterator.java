@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * This is a primitive iterator over the Fibonacci numbers that fit
+ * in a long, which are F(0) to F(92). No BigIntegers or boxed Longs
+ * are created, so small sequences produce no garbage. hasNext() returns
+ * false after F(92) because F(93) overflows a long.
+ */
+public class LongFibonacciIterator implements PrimitiveIterator.OfLong
+{
+	// F(92) = 7540113804746346429 is the largest Fib that fits in a long
+	public final static int MAX_INDEX = 92;
+
+	private long a = 0;
+	private long b = 1;
+
+	// The index of a, which is the Fib the next call to nextLong() returns
+	private int position = 0;
+
+	/**
+	 * Returns the next number in the Fibonacci sequence.
+	 *
+	 * @return The next number
+	 * @throws NoSuchElementException If the next Fib would overflow a long
+	 */
+	@Override
+	public long nextLong()
+	{
+		if ( position > MAX_INDEX )
+		{
+			throw new NoSuchElementException( "F(" + position + ") overflows a long" );
+		}
+
+		long current = a;
+
+		// Shift a and b forward. Past F(91) the sum wraps around,
+		// but it is never returned.
+		a = b;
+		b = current + b;
+		position++;
+
+		return current;
+	}
+
+	/**
+	 * Returns true until F(92) has been returned
+	 *
+	 * @return True if the next Fib fits in a long
+	 */
+	@Override
+	public boolean hasNext()
+	{
+		return position <= MAX_INDEX;
+	}
+
+	/**
+	 * This is not supported
+	 */
+	@Override
+	public void remove()
+	{
+		throw new UnsupportedOperationException( "Removal of Fibonacci numbers generated on the fly is not supported" );
+	}
+
+	/**
+	 * Return the index of the Fib the next call to nextLong() returns
+	 *
+	 * @return The current zero-based position
+	 */
+	public int position()
+	{
+		return position;
+	}
+}
@@ -0,0 +1,601 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Instrumentation of the generation hot path. While disabled, which is
+ * the default, each writer checks one volatile flag per call and reads no
+ * clocks. While enabled, writers time the compute, format and write
+ * phases of every Fib, and each request records its latency, phase
+ * totals, output counts and the heap it allocated.
+ *
+ * Latencies are kept in histograms with power-of-two nanosecond buckets,
+ * so recording is a few atomic increments and percentiles are accurate
+ * to within a factor of two. The totals are exposed through the
+ * MetricsMXBean and as a plain-text dump.
+ *
+ * Phase times are summed over threads, so a parallel request can
+ * spend more time in its phases than it took.
+ */
+public final class Metrics
+{
+	// The name the MBean is registered under
+	public final static String OBJECT_NAME = "com.ericdraken.interviews:type=Metrics";
+
+	private final static int BUCKETS = 64;
+
+	private static volatile boolean enabled = false;
+
+	final static Histogram REQUESTS = new Histogram();
+
+	final static Histogram COMPUTE = new Histogram();
+
+	final static Histogram FORMAT = new Histogram();
+
+	final static Histogram WRITE = new Histogram();
+
+	private final static LongAdder terms = new LongAdder();
+
+	private final static LongAdder bytes = new LongAdder();
+
+	private final static LongAdder digits = new LongAdder();
+
+	private final static LongAdder allocatedBytes = new LongAdder();
+
+	// The request being measured on each thread, if any
+	private final static ThreadLocal<Request> current = new ThreadLocal<>();
+
+	// The cache whose hit rate is reported, if any
+	private static volatile TermCache cache = null;
+
+	private Metrics()
+	{
+		// Static utility class
+	}
+
+	/**
+	 * Return true if measurements are being recorded
+	 *
+	 * @return True while enabled
+	 */
+	public static boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	/**
+	 * Start or stop recording. Totals are kept while stopped.
+	 *
+	 * @param on True to record
+	 */
+	public static void setEnabled( boolean on )
+	{
+		enabled = on;
+	}
+
+	/**
+	 * Report the hit rate of a cache
+	 *
+	 * @param termCache The cache, or null for none
+	 */
+	public static void watch( TermCache termCache )
+	{
+		cache = termCache;
+	}
+
+	/**
+	 * Start measuring a request on this thread. Writers called on this
+	 * thread add their phases to it until it is finished.
+	 *
+	 * @return The request, or null while disabled
+	 */
+	public static Request start()
+	{
+		if ( !enabled )
+		{
+			return null;
+		}
+		Request request = new Request( true );
+		current.set( request );
+		return request;
+	}
+
+	/**
+	 * Finish measuring a request and record it
+	 *
+	 * @param request The request from start(), which may be null
+	 */
+	public static void finish( Request request )
+	{
+		if ( request == null )
+		{
+			return;
+		}
+		current.remove();
+		request.record();
+	}
+
+	/**
+	 * Return the phase timer for a writer call: the current request of this
+	 * thread, or a new request of its own if none was started
+	 *
+	 * @return The phase timer, or null while disabled
+	 */
+	static Request phases()
+	{
+		if ( !enabled )
+		{
+			return null;
+		}
+		Request request = current.get();
+		return request != null ? request : new Request( false );
+	}
+
+	/**
+	 * Record a writer call's own request, leaving started requests to finish()
+	 *
+	 * @param phases The timer from phases(), which may be null
+	 */
+	static void done( Request phases )
+	{
+		if ( phases != null && !phases.started )
+		{
+			phases.record();
+		}
+	}
+
+	/**
+	 * Clear every total
+	 */
+	public static void reset()
+	{
+		REQUESTS.reset();
+		COMPUTE.reset();
+		FORMAT.reset();
+		WRITE.reset();
+		terms.reset();
+		bytes.reset();
+		digits.reset();
+		allocatedBytes.reset();
+	}
+
+	/**
+	 * Return the totals as plain text, one measurement per line
+	 *
+	 * @return The report
+	 */
+	public static String dump()
+	{
+		long requests = REQUESTS.count();
+		double seconds = REQUESTS.sum() / 1e9;
+		TermCache termCache = cache;
+
+		StringBuilder report = new StringBuilder();
+		report.append( String.format( "requests        %,d%n", requests ) );
+		report.append( String.format( "latency         %s%n", REQUESTS ) );
+		report.append( String.format( "  compute       %s%n", COMPUTE ) );
+		report.append( String.format( "  format        %s%n", FORMAT ) );
+		report.append( String.format( "  write         %s%n", WRITE ) );
+		report.append( String.format( "terms           %,d (%,.0f/s)%n", terms.sum(), seconds > 0 ? terms.sum() / seconds : 0.0 ) );
+		report.append( String.format( "digits          %,d (%,.0f/s)%n", digits.sum(), seconds > 0 ? digits.sum() / seconds : 0.0 ) );
+		report.append( String.format( "bytes written   %,d%n", bytes.sum() ) );
+		report.append( String.format( "allocated/req   %,d bytes%n", requests > 0 ? allocatedBytes.sum() / requests : 0 ) );
+		if ( termCache != null )
+		{
+			report.append( String.format( "cache hit rate  %.1f%%%n", 100 * hitRate( termCache ) ) );
+		}
+		return report.toString();
+	}
+
+	/**
+	 * Print the dump at a fixed rate on a daemon thread
+	 *
+	 * @param out Where to print
+	 * @param period The time between dumps
+	 * @param unit The unit of the period
+	 * @return The scheduler, to shut down when done
+	 */
+	public static ScheduledExecutorService dumpEvery( PrintStream out, long period, TimeUnit unit )
+	{
+		ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor( runnable -> {
+			Thread thread = new Thread( runnable, "fibonacci-metrics" );
+			thread.setDaemon( true );
+			return thread;
+		} );
+		scheduler.scheduleAtFixedRate( () -> out.print( dump() ), period, period, unit );
+		return scheduler;
+	}
+
+	/**
+	 * Register the MBean with the platform MBean server
+	 *
+	 * @throws JMException If it can't be registered, or already is
+	 */
+	public static void registerMBean() throws JMException
+	{
+		ManagementFactory.getPlatformMBeanServer().registerMBean( new Bean(), new ObjectName( OBJECT_NAME ) );
+	}
+
+	/**
+	 * Return the fraction of cache lookups that hit
+	 */
+	private static double hitRate( TermCache termCache )
+	{
+		long hits = termCache.hits();
+		long lookups = hits + termCache.misses();
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	/**
+	 * Return the bytes allocated by this thread so far, or -1 if the JVM can't tell
+	 */
+	private static long threadAllocatedBytes()
+	{
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if ( threads instanceof com.sun.management.ThreadMXBean )
+		{
+			return ( (com.sun.management.ThreadMXBean) threads ).getThreadAllocatedBytes( Thread.currentThread().getId() );
+		}
+		return -1;
+	}
+
+	/**
+	 * The measurements of one request. Writers mark the end of each phase
+	 * with the time it started, and get the time it ended back, so each Fib
+	 * costs one clock read per phase.
+	 *
+	 * Note: A request is updated by one thread at a time.
+	 */
+	public static final class Request
+	{
+		// True if started explicitly, so writers don't record it themselves
+		private final boolean started;
+
+		private final long startNanos = System.nanoTime();
+
+		private final long startAllocated = threadAllocatedBytes();
+
+		private long computeNanos = 0;
+		private long formatNanos = 0;
+		private long writeNanos = 0;
+
+		private long terms = 0;
+		private long digits = 0;
+		private long bytes = 0;
+
+		private Request( boolean started )
+		{
+			this.started = started;
+		}
+
+		/**
+		 * Add the time since [since] to the compute phase
+		 *
+		 * @param since The start of the phase
+		 * @return The end of the phase
+		 */
+		long compute( long since )
+		{
+			long now = System.nanoTime();
+			computeNanos += now - since;
+			return now;
+		}
+
+		/**
+		 * Add the time since [since] to the format phase
+		 *
+		 * @param since The start of the phase
+		 * @return The end of the phase
+		 */
+		long format( long since )
+		{
+			long now = System.nanoTime();
+			formatNanos += now - since;
+			return now;
+		}
+
+		/**
+		 * Add the time since [since] to the write phase
+		 *
+		 * @param since The start of the phase
+		 * @return The end of the phase
+		 */
+		long write( long since )
+		{
+			long now = System.nanoTime();
+			writeNanos += now - since;
+			return now;
+		}
+
+		/**
+		 * Add phase times measured elsewhere, such as on worker threads
+		 */
+		void add( long compute, long format, long write )
+		{
+			computeNanos += compute;
+			formatNanos += format;
+			writeNanos += write;
+		}
+
+		/**
+		 * Count the output of a writer call
+		 *
+		 * @param fibs The number of Fibs written
+		 * @param written The number of bytes written, including separators
+		 */
+		void output( long fibs, long written )
+		{
+			terms += fibs;
+			bytes += written;
+			digits += fibs > 0 ? written - ( fibs - 1 ) : 0;
+		}
+
+		/**
+		 * Add this request to the totals
+		 */
+		private void record()
+		{
+			REQUESTS.record( System.nanoTime() - startNanos );
+			COMPUTE.record( computeNanos );
+			FORMAT.record( formatNanos );
+			WRITE.record( writeNanos );
+			Metrics.terms.add( terms );
+			Metrics.digits.add( digits );
+			Metrics.bytes.add( bytes );
+
+			long allocated = threadAllocatedBytes();
+			if ( allocated >= 0 && startAllocated >= 0 )
+			{
+				allocatedBytes.add( allocated - startAllocated );
+			}
+		}
+	}
+
+	/**
+	 * A concurrent histogram of nanosecond durations in power-of-two buckets
+	 */
+	static final class Histogram
+	{
+		// Bucket i counts durations from 2^i to 2^(i+1) - 1, with 0 in bucket 0
+		private final AtomicLongArray buckets = new AtomicLongArray( BUCKETS );
+
+		private final LongAdder count = new LongAdder();
+
+		private final LongAdder sum = new LongAdder();
+
+		private final AtomicLong max = new AtomicLong();
+
+		/**
+		 * Add a duration
+		 *
+		 * @param nanos The duration in nanoseconds
+		 */
+		void record( long nanos )
+		{
+			nanos = Math.max( 0, nanos );
+			buckets.incrementAndGet( 63 - Long.numberOfLeadingZeros( nanos | 1 ) );
+			count.increment();
+			sum.add( nanos );
+			max.accumulateAndGet( nanos, Math::max );
+		}
+
+		/**
+		 * Return the number of durations
+		 *
+		 * @return The count
+		 */
+		long count()
+		{
+			return count.sum();
+		}
+
+		/**
+		 * Return the total of the durations
+		 *
+		 * @return The sum in nanoseconds
+		 */
+		long sum()
+		{
+			return sum.sum();
+		}
+
+		/**
+		 * Return the longest duration
+		 *
+		 * @return The max in nanoseconds
+		 */
+		long max()
+		{
+			return max.get();
+		}
+
+		/**
+		 * Return an upper bound of a percentile, exact to within a factor of two
+		 *
+		 * @param percentile The percentile from 0 to 100
+		 * @return The upper bound of its bucket in nanoseconds, at most the max
+		 */
+		long percentile( double percentile )
+		{
+			long total = count();
+			if ( total == 0 )
+			{
+				return 0;
+			}
+
+			long rank = (long) Math.ceil( total * percentile / 100 );
+			long seen = 0;
+			for ( int i = 0; i < BUCKETS; i++ )
+			{
+				seen += buckets.get( i );
+				if ( seen >= Math.max( 1, rank ) )
+				{
+					return Math.min( max(), i == 62 ? Long.MAX_VALUE : ( 2L << i ) - 1 );
+				}
+			}
+			return max();
+		}
+
+		/**
+		 * Clear the histogram
+		 */
+		void reset()
+		{
+			for ( int i = 0; i < BUCKETS; i++ )
+			{
+				buckets.set( i, 0 );
+			}
+			count.reset();
+			sum.reset();
+			max.set( 0 );
+		}
+
+		/**
+		 * Summarize the histogram in milliseconds
+		 *
+		 * @return The count, mean and percentiles
+		 */
+		@Override
+		public String toString()
+		{
+			long total = count();
+			return String.format(
+				"n=%,d mean=%.3fms p50=%.3fms p90=%.3fms p99=%.3fms max=%.3fms",
+				total, total == 0 ? 0.0 : sum() / 1e6 / total,
+				percentile( 50 ) / 1e6, percentile( 90 ) / 1e6, percentile( 99 ) / 1e6, max() / 1e6
+			);
+		}
+	}
+
+	/**
+	 * The MBean view of the totals
+	 */
+	private static final class Bean implements MetricsMXBean
+	{
+		@Override
+		public boolean isEnabled()
+		{
+			return Metrics.isEnabled();
+		}
+
+		@Override
+		public void setEnabled( boolean on )
+		{
+			Metrics.setEnabled( on );
+		}
+
+		@Override
+		public long getRequestCount()
+		{
+			return REQUESTS.count();
+		}
+
+		@Override
+		public long getRequestLatencyP50Nanos()
+		{
+			return REQUESTS.percentile( 50 );
+		}
+
+		@Override
+		public long getRequestLatencyP99Nanos()
+		{
+			return REQUESTS.percentile( 99 );
+		}
+
+		@Override
+		public long getRequestLatencyMaxNanos()
+		{
+			return REQUESTS.max();
+		}
+
+		@Override
+		public long getComputeNanos()
+		{
+			return COMPUTE.sum();
+		}
+
+		@Override
+		public long getFormatNanos()
+		{
+			return FORMAT.sum();
+		}
+
+		@Override
+		public long getWriteNanos()
+		{
+			return WRITE.sum();
+		}
+
+		@Override
+		public long getTermsWritten()
+		{
+			return terms.sum();
+		}
+
+		@Override
+		public long getDigitsWritten()
+		{
+			return digits.sum();
+		}
+
+		@Override
+		public long getBytesWritten()
+		{
+			return bytes.sum();
+		}
+
+		@Override
+		public double getTermsPerSecond()
+		{
+			long nanos = REQUESTS.sum();
+			return nanos == 0 ? 0 : terms.sum() * 1e9 / nanos;
+		}
+
+		@Override
+		public double getDigitsPerSecond()
+		{
+			long nanos = REQUESTS.sum();
+			return nanos == 0 ? 0 : digits.sum() * 1e9 / nanos;
+		}
+
+		@Override
+		public double getCacheHitRate()
+		{
+			TermCache termCache = cache;
+			return termCache == null ? 0 : hitRate( termCache );
+		}
+
+		@Override
+		public long getAllocatedBytesPerRequest()
+		{
+			long requests = REQUESTS.count();
+			return requests == 0 ? 0 : allocatedBytes.sum() / requests;
+		}
+
+		@Override
+		public String dump()
+		{
+			return Metrics.dump();
+		}
+
+		@Override
+		public void reset()
+		{
+			Metrics.reset();
+		}
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+/**
+ * The JMX view of the generation metrics, registered by
+ * Metrics.registerMBean() under Metrics.OBJECT_NAME.
+ * Latencies and phase times are in nanoseconds.
+ */
+public interface MetricsMXBean
+{
+	/**
+	 * Return true if measurements are being recorded
+	 */
+	boolean isEnabled();
+
+	/**
+	 * Start or stop recording
+	 */
+	void setEnabled( boolean on );
+
+	/**
+	 * Return the number of requests recorded
+	 */
+	long getRequestCount();
+
+	/**
+	 * Return the median request latency, to within a factor of two
+	 */
+	long getRequestLatencyP50Nanos();
+
+	/**
+	 * Return the 99th percentile request latency, to within a factor of two
+	 */
+	long getRequestLatencyP99Nanos();
+
+	/**
+	 * Return the longest request latency
+	 */
+	long getRequestLatencyMaxNanos();
+
+	/**
+	 * Return the total time spent generating Fibs
+	 */
+	long getComputeNanos();
+
+	/**
+	 * Return the total time spent formatting digits
+	 */
+	long getFormatNanos();
+
+	/**
+	 * Return the total time spent writing output
+	 */
+	long getWriteNanos();
+
+	/**
+	 * Return the number of Fibs written
+	 */
+	long getTermsWritten();
+
+	/**
+	 * Return the number of digits written, without separators
+	 */
+	long getDigitsWritten();
+
+	/**
+	 * Return the number of bytes written
+	 */
+	long getBytesWritten();
+
+	/**
+	 * Return the Fibs written per second of request time
+	 */
+	double getTermsPerSecond();
+
+	/**
+	 * Return the digits written per second of request time
+	 */
+	double getDigitsPerSecond();
+
+	/**
+	 * Return the fraction of cache lookups that hit
+	 */
+	double getCacheHitRate();
+
+	/**
+	 * Return the mean heap bytes allocated by a request on its own thread
+	 */
+	long getAllocatedBytesPerRequest();
+
+	/**
+	 * Return the plain-text report
+	 *
+	 * @return The same report as the periodic dump
+	 */
+	String dump();
+
+	/**
+	 * Clear every total
+	 */
+	void reset();
+}
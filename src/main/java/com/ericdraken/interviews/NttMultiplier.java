@@ -0,0 +1,353 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import java.math.BigInteger;
+
+/**
+ * Multiplies huge numbers in O(n log n) with a number-theoretic transform,
+ * the exact integer analogue of an FFT. The factors are cut into 16-bit
+ * digits, and their digit sequences are convolved modulo two NTT-friendly
+ * primes. Each coefficient of the convolution is below the product of the
+ * primes, so the Chinese remainder theorem recovers it exactly, and the
+ * carries are then propagated in base 2^16.
+ *
+ * Factors below the threshold go to BigInteger.multiply, whose Toom-Cook
+ * is faster there. Products too long for one transform are split with
+ * Karatsuba until the halves fit.
+ * REF: https://cp-algorithms.com/algebra/fft.html#number-theoretic-transform
+ *
+ * Instances are immutable and thread safe.
+ */
+public class NttMultiplier implements BigMultiplier
+{
+	// Below about this many bits in the smaller factor BigInteger's Toom-Cook is
+	// faster, for products and squares alike. Measured with BigMultiplierBenchmark.
+	public final static int DEFAULT_THRESHOLD_BITS = 1 << 20;
+
+	// Both primes are c * 2^k + 1 with primitive root 3. 2^23 divides P1 - 1 and 2^25 divides P2 - 1.
+	private final static long P1 = 998_244_353;
+
+	private final static long P2 = 167_772_161;
+
+	private final static long ROOT = 3;
+
+	private final static long P1_INVERSE_MOD_P2 = power( P1 % P2, P2 - 2, P2 );
+
+	private final static int DIGIT_BITS = 16;
+
+	private final static int DIGIT_MASK = ( 1 << DIGIT_BITS ) - 1;
+
+	// The longest transform both primes support. A coefficient is then at most
+	// 2^22 products of two 16-bit digits, below 2^54 and so below P1 * P2.
+	final static int MAX_LENGTH = 1 << 23;
+
+	private final int thresholdBits;
+
+	// The longest transform used, below MAX_LENGTH only to test the split
+	private final int maxLength;
+
+	/**
+	 * Use the default threshold
+	 */
+	public NttMultiplier()
+	{
+		this( DEFAULT_THRESHOLD_BITS );
+	}
+
+	/**
+	 * Use a specific threshold
+	 *
+	 * @param thresholdBits The bit length of the smaller factor from which the transform is used
+	 */
+	public NttMultiplier( int thresholdBits )
+	{
+		this( thresholdBits, MAX_LENGTH );
+	}
+
+	/**
+	 * Use a specific threshold and a shorter longest transform,
+	 * so that tests reach the Karatsuba split with small factors
+	 *
+	 * @param thresholdBits The bit length of the smaller factor from which the transform is used
+	 * @param maxLength The longest transform, a power of two up to MAX_LENGTH
+	 */
+	NttMultiplier( int thresholdBits, int maxLength )
+	{
+		if ( Integer.bitCount( maxLength ) != 1 || maxLength < 2 || maxLength > MAX_LENGTH )
+		{
+			throw new IllegalArgumentException( "The transform length must be a power of two from 2 to " + MAX_LENGTH + ": " + maxLength );
+		}
+		this.thresholdBits = thresholdBits;
+		this.maxLength = maxLength;
+	}
+
+	/**
+	 * Return the product of two numbers
+	 *
+	 * @param a The first factor
+	 * @param b The second factor
+	 * @return a * b
+	 */
+	@Override
+	public BigInteger multiply( BigInteger a, BigInteger b )
+	{
+		if ( Math.min( a.bitLength(), b.bitLength() ) < thresholdBits )
+		{
+			return a.multiply( b );
+		}
+		BigInteger product = multiplyMagnitudes( a.abs(), b.abs(), a == b );
+		return a.signum() * b.signum() < 0 ? product.negate() : product;
+	}
+
+	/**
+	 * Return the square of a number with two forward transforms instead of four
+	 *
+	 * @param a The number to square
+	 * @return a * a
+	 */
+	@Override
+	public BigInteger square( BigInteger a )
+	{
+		if ( a.bitLength() < thresholdBits )
+		{
+			return a.multiply( a );
+		}
+		BigInteger abs = a.abs();
+		return multiplyMagnitudes( abs, abs, true );
+	}
+
+	/**
+	 * Multiply two non-negative numbers, splitting them until one transform holds the product
+	 */
+	private BigInteger multiplyMagnitudes( BigInteger a, BigInteger b, boolean square )
+	{
+		if ( digits( a ) + digits( b ) <= maxLength )
+		{
+			return convolve( a, b, square );
+		}
+
+		int h = Karatsuba.half( a, b );
+		BigInteger a0 = Karatsuba.low( a, h );
+		BigInteger a1 = Karatsuba.high( a, h );
+		if ( square )
+		{
+			return Karatsuba.combine( square( a0 ), square( a0.add( a1 ) ), square( a1 ), h );
+		}
+		BigInteger b0 = Karatsuba.low( b, h );
+		BigInteger b1 = Karatsuba.high( b, h );
+		return Karatsuba.combine( multiply( a0, b0 ), multiply( a0.add( a1 ), b0.add( b1 ) ), multiply( a1, b1 ), h );
+	}
+
+	/**
+	 * Multiply two non-negative numbers with one convolution per prime
+	 */
+	private static BigInteger convolve( BigInteger a, BigInteger b, boolean square )
+	{
+		int[] x = toDigits( a );
+		int[] y = square ? x : toDigits( b );
+		int length = Integer.highestOneBit( Math.max( 1, x.length + y.length - 1 ) * 2 - 1 );
+
+		long[] r1 = convolve( x, y, square, length, P1 );
+		long[] r2 = convolve( x, y, square, length, P2 );
+
+		// Recover each coefficient from its two residues and carry in base 2^16
+		int count = x.length + y.length;
+		int[] digits = new int[count];
+		long carry = 0;
+		for ( int i = 0; i < count; i++ )
+		{
+			long coefficient = 0;
+			if ( i < length )
+			{
+				long t = ( r2[i] - r1[i] % P2 + P2 ) % P2 * P1_INVERSE_MOD_P2 % P2;
+				coefficient = r1[i] + P1 * t;
+			}
+			long sum = coefficient + carry;
+			digits[i] = (int) ( sum & DIGIT_MASK );
+			carry = sum >>> DIGIT_BITS;
+		}
+		return fromDigits( digits );
+	}
+
+	/**
+	 * Return the cyclic convolution of two digit sequences modulo p
+	 */
+	private static long[] convolve( int[] x, int[] y, boolean square, int length, long p )
+	{
+		long[] fx = new long[length];
+		for ( int i = 0; i < x.length; i++ )
+		{
+			fx[i] = x[i];
+		}
+		long[] roots = roots( length, p );
+		transform( fx, roots, p );
+
+		long[] fy = fx;
+		if ( !square )
+		{
+			fy = new long[length];
+			for ( int i = 0; i < y.length; i++ )
+			{
+				fy[i] = y[i];
+			}
+			transform( fy, roots, p );
+		}
+
+		for ( int i = 0; i < length; i++ )
+		{
+			fx[i] = fx[i] * fy[i] % p;
+		}
+
+		// The inverse transform is the forward one with the result reversed and scaled by 1/length
+		transform( fx, roots, p );
+		long scale = power( length, p - 2, p );
+		for ( int i = 1, j = length - 1; i < j; i++, j-- )
+		{
+			long t = fx[i];
+			fx[i] = fx[j];
+			fx[j] = t;
+		}
+		for ( int i = 0; i < length; i++ )
+		{
+			fx[i] = fx[i] * scale % p;
+		}
+		return fx;
+	}
+
+	/**
+	 * Return the twiddle factors of every butterfly stage modulo p. The stage of
+	 * width 2h keeps the powers w^0 to w^(h-1) of a primitive 2h-th root of unity
+	 * at [h, 2h), so each stage reads them in order. Their Shoup quotients
+	 * floor( w^j * 2^32 / p ) follow at [length + h, length + 2h).
+	 */
+	private static long[] roots( int length, long p )
+	{
+		long[] roots = new long[length * 2];
+		for ( int half = 1; half < length; half <<= 1 )
+		{
+			long w = power( ROOT, ( p - 1 ) / ( half * 2 ), p );
+			roots[half] = 1;
+			for ( int j = 1; j < half; j++ )
+			{
+				roots[half + j] = roots[half + j - 1] * w % p;
+			}
+		}
+		for ( int i = 1; i < length; i++ )
+		{
+			roots[length + i] = ( roots[i] << 32 ) / p;
+		}
+		return roots;
+	}
+
+	/**
+	 * Transform in place with iterative radix-2 Cooley-Tukey butterflies
+	 */
+	private static void transform( long[] a, long[] roots, long p )
+	{
+		int n = a.length;
+
+		// Bit-reversal permutation
+		for ( int i = 1, j = 0; i < n; i++ )
+		{
+			int bit = n >> 1;
+			for ( ; ( j & bit ) != 0; bit >>= 1 )
+			{
+				j ^= bit;
+			}
+			j ^= bit;
+			if ( i < j )
+			{
+				long t = a[i];
+				a[i] = a[j];
+				a[j] = t;
+			}
+		}
+
+		// Shoup's trick replaces the division in v * w mod p with a precomputed quotient.
+		// Everything is below 2^30, so v * w' fits in a long and the remainder is below 2p.
+		for ( int half = 1; half < n; half <<= 1 )
+		{
+			for ( int i = 0; i < n; i += half * 2 )
+			{
+				for ( int j = 0; j < half; j++ )
+				{
+					long u = a[i + j];
+					long x = a[i + j + half];
+					long v = x * roots[half + j] - ( ( x * roots[n + half + j] ) >>> 32 ) * p;
+					if ( v >= p )
+					{
+						v -= p;
+					}
+					long sum = u + v;
+					long difference = u - v;
+					a[i + j] = sum >= p ? sum - p : sum;
+					a[i + j + half] = difference < 0 ? difference + p : difference;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Return the number of 16-bit digits of a non-negative number
+	 */
+	private static int digits( BigInteger x )
+	{
+		return Math.max( 1, ( x.bitLength() + DIGIT_BITS - 1 ) / DIGIT_BITS );
+	}
+
+	/**
+	 * Cut a non-negative number into little-endian 16-bit digits
+	 */
+	private static int[] toDigits( BigInteger x )
+	{
+		byte[] bytes = x.toByteArray();
+		int[] digits = new int[digits( x )];
+		for ( int i = 0; i < digits.length; i++ )
+		{
+			// Big-endian bytes, least significant digit last
+			int lo = bytes.length - 1 - 2 * i;
+			int value = bytes[lo] & 0xff;
+			if ( lo > 0 )
+			{
+				value |= ( bytes[lo - 1] & 0xff ) << 8;
+			}
+			digits[i] = value;
+		}
+		return digits;
+	}
+
+	/**
+	 * Join little-endian 16-bit digits into a non-negative number
+	 */
+	private static BigInteger fromDigits( int[] digits )
+	{
+		byte[] bytes = new byte[digits.length * 2];
+		for ( int i = 0; i < digits.length; i++ )
+		{
+			bytes[bytes.length - 1 - 2 * i] = (byte) digits[i];
+			bytes[bytes.length - 2 - 2 * i] = (byte) ( digits[i] >>> 8 );
+		}
+		return new BigInteger( 1, bytes );
+	}
+
+	/**
+	 * Return base^exponent mod m
+	 */
+	private static long power( long base, long exponent, long m )
+	{
+		long result = 1;
+		base %= m;
+		for ( ; exponent > 0; exponent >>= 1 )
+		{
+			if ( ( exponent & 1 ) != 0 )
+			{
+				result = result * base % m;
+			}
+			base = base * base % m;
+		}
+		return result;
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import java.math.BigInteger;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Spreads huge multiplications and squarings over the cores of a ForkJoinPool.
+ * The top levels of the product are split with Karatsuba into three
+ * independent half-size products, which are computed in parallel by another
+ * backend, the NTT by default, until there are enough pieces to keep every
+ * worker busy. Over an O(n log n) backend the three halves cost about 1.5
+ * times the whole product, so splitting only pays with idle workers, and
+ * products on a single-worker pool are never split.
+ *
+ * Instances are immutable and thread safe.
+ */
+public class ParallelMultiplier implements BigMultiplier
+{
+	// Below this many bits a product isn't worth forking. Untuned: it has only
+	// been run on one core, where nothing is forked, so it is an estimate of
+	// where idle workers repay the 1.5x cost of the split, not a measurement.
+	public final static int DEFAULT_THRESHOLD_BITS = 1 << 22;
+
+	private final BigMultiplier leaf;
+
+	private final ForkJoinPool pool;
+
+	private final int thresholdBits;
+
+	// Levels of splitting, each giving three times as many pieces
+	private final int maxDepth;
+
+	/**
+	 * Use the NTT on the common ForkJoinPool
+	 */
+	public ParallelMultiplier()
+	{
+		this( new NttMultiplier(), ForkJoinPool.commonPool(), DEFAULT_THRESHOLD_BITS );
+	}
+
+	/**
+	 * Use a specific backend and pool
+	 *
+	 * @param leaf The backend for the pieces
+	 * @param pool The pool to run the pieces on
+	 * @param thresholdBits The bit length of the larger factor from which a product is split
+	 */
+	public ParallelMultiplier( BigMultiplier leaf, ForkJoinPool pool, int thresholdBits )
+	{
+		this.leaf = leaf;
+		this.pool = pool;
+		this.thresholdBits = thresholdBits;
+
+		int depth = 0;
+		for ( int pieces = 1; pieces < pool.getParallelism(); pieces *= 3 )
+		{
+			depth++;
+		}
+		this.maxDepth = depth;
+	}
+
+	/**
+	 * Return the product of two numbers
+	 *
+	 * @param a The first factor
+	 * @param b The second factor
+	 * @return a * b
+	 */
+	@Override
+	public BigInteger multiply( BigInteger a, BigInteger b )
+	{
+		if ( maxDepth == 0 || Math.max( a.bitLength(), b.bitLength() ) < thresholdBits )
+		{
+			return leaf.multiply( a, b );
+		}
+		BigInteger product = pool.invoke( new Product( a.abs(), b.abs(), a == b, 0 ) );
+		return a.signum() * b.signum() < 0 ? product.negate() : product;
+	}
+
+	/**
+	 * Return the square of a number
+	 *
+	 * @param a The number to square
+	 * @return a * a
+	 */
+	@Override
+	public BigInteger square( BigInteger a )
+	{
+		if ( maxDepth == 0 || a.bitLength() < thresholdBits )
+		{
+			return leaf.square( a );
+		}
+		BigInteger abs = a.abs();
+		return pool.invoke( new Product( abs, abs, true, 0 ) );
+	}
+
+	/**
+	 * One product of non-negative numbers, split in three until deep enough
+	 */
+	private class Product extends RecursiveTask<BigInteger>
+	{
+		// ForkJoinTask is Serializable, though products never leave the pool
+		private final static long serialVersionUID = 1L;
+
+		private final BigInteger a;
+
+		private final BigInteger b;
+
+		private final boolean square;
+
+		private final int depth;
+
+		Product( BigInteger a, BigInteger b, boolean square, int depth )
+		{
+			this.a = a;
+			this.b = b;
+			this.square = square;
+			this.depth = depth;
+		}
+
+		@Override
+		protected BigInteger compute()
+		{
+			if ( depth == maxDepth || Math.max( a.bitLength(), b.bitLength() ) < thresholdBits )
+			{
+				return square ? leaf.square( a ) : leaf.multiply( a, b );
+			}
+
+			int h = Karatsuba.half( a, b );
+			BigInteger a0 = Karatsuba.low( a, h );
+			BigInteger a1 = Karatsuba.high( a, h );
+			BigInteger b0 = square ? a0 : Karatsuba.low( b, h );
+			BigInteger b1 = square ? a1 : Karatsuba.high( b, h );
+			BigInteger a01 = a0.add( a1 );
+
+			Product z0 = new Product( a0, b0, square, depth + 1 );
+			Product z1 = new Product( a01, square ? a01 : b0.add( b1 ), square, depth + 1 );
+			Product z2 = new Product( a1, b1, square, depth + 1 );
+			ForkJoinTask.invokeAll( z0, z1, z2 );
+			return Karatsuba.combine( z0.join(), z1.join(), z2.join(), h );
+		}
+	}
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Writes the Fibonacci sequence using all the cores of a ForkJoinPool.
+ * The range [0, length) is cut into segments, and each segment is seeded
+ * directly with fast doubling so that workers never wait on each other.
+ * Each worker generates and formats its own Fibs, which is where nearly
+ * all the time goes, and the formatted chunks are written out in order.
+ */
+public class ParallelSequenceWriter
+{
+	// Segments smaller than this are not worth the seeding multiplications
+	private final static int MIN_SEGMENT_LENGTH = 256;
+
+	// Aim for several segments per worker so the growing Fibs balance out
+	private final static int SEGMENTS_PER_WORKER = 8;
+
+	// Cap the formatted size of a segment to bound memory on huge sequences
+	private final static long TARGET_SEGMENT_BYTES = 4 << 20;
+
+	private final ForkJoinPool pool;
+
+	/**
+	 * Use the common ForkJoinPool
+	 */
+	public ParallelSequenceWriter()
+	{
+		this( ForkJoinPool.commonPool() );
+	}
+
+	/**
+	 * Use a specific ForkJoinPool
+	 *
+	 * @param pool The pool to run the segment workers on
+	 */
+	public ParallelSequenceWriter( ForkJoinPool pool )
+	{
+		this.pool = pool;
+	}
+
+	/**
+	 * Write the first [length] Fibonacci numbers as ASCII separated by spaces.
+	 * At most two segments per worker are held in memory at once, and
+	 * segments are kept to about TARGET_SEGMENT_BYTES each as the Fibs grow.
+	 *
+	 * @param length The number of Fibonacci numbers to write
+	 * @param channel The output channel
+	 * @return The number of bytes written
+	 * @throws IOException Exception if the channel is closed or invalid
+	 */
+	public long write( long length, WritableByteChannel channel ) throws IOException
+	{
+		int parallelism = pool.getParallelism();
+		long segmentLength = Math.max(
+			MIN_SEGMENT_LENGTH,
+			( length + parallelism * SEGMENTS_PER_WORKER - 1 ) / ( parallelism * SEGMENTS_PER_WORKER )
+		);
+		int window = parallelism * 2;
+
+		long written = 0;
+		Metrics.Request phases = Metrics.phases();
+		Deque<ForkJoinTask<Chunk>> inFlight = new ArrayDeque<>( window );
+		try
+		{
+			long next = 0;
+			while ( next < length || !inFlight.isEmpty() )
+			{
+				// Keep the window of segments full
+				while ( next < length && inFlight.size() < window )
+				{
+					long bytesPerFib = SequencePlanner.digits( next ) + 1;
+					long count = Math.min(
+						Math.min( segmentLength, length - next ),
+						Math.max( MIN_SEGMENT_LENGTH, TARGET_SEGMENT_BYTES / bytesPerFib )
+					);
+					inFlight.addLast( pool.submit( new Segment( next, count, phases != null ) ) );
+					next += count;
+				}
+
+				// Write the oldest segment, waiting for it if needed
+				Chunk chunk = inFlight.removeFirst().join();
+				long mark = phases == null ? 0 : System.nanoTime();
+				written += ChannelSequenceWriter.writeFully( ByteBuffer.wrap( chunk.bytes, 0, chunk.length ), channel );
+				if ( phases != null )
+				{
+					phases.write( mark );
+					phases.add( chunk.computeNanos, chunk.formatNanos, 0 );
+				}
+			}
+		}
+		finally
+		{
+			// Don't leave workers running if the channel failed
+			for ( ForkJoinTask<Chunk> task : inFlight )
+			{
+				task.cancel( true );
+			}
+		}
+
+		if ( phases != null )
+		{
+			phases.output( length, written );
+			Metrics.done( phases );
+		}
+		return written;
+	}
+
+	/**
+	 * The formatted ASCII bytes of a segment, and the time the worker spent on them
+	 */
+	private static class Chunk
+	{
+		private final byte[] bytes;
+
+		private final int length;
+
+		private final long computeNanos;
+
+		private final long formatNanos;
+
+		Chunk( byte[] bytes, int length, long computeNanos, long formatNanos )
+		{
+			this.bytes = bytes;
+			this.length = length;
+			this.computeNanos = computeNanos;
+			this.formatNanos = formatNanos;
+		}
+	}
+
+	/**
+	 * Generate and format a contiguous run of Fibs
+	 */
+	private static class Segment extends RecursiveTask<Chunk>
+	{
+		// ForkJoinTask is Serializable, though segments never leave the pool
+		private final static long serialVersionUID = 1L;
+
+		private final long start;
+
+		private final long count;
+
+		// Read the clock around each phase only when metrics are enabled
+		private final boolean timed;
+
+		Segment( long start, long count, boolean timed )
+		{
+			this.start = start;
+			this.count = count;
+			this.timed = timed;
+		}
+
+		@Override
+		protected Chunk compute()
+		{
+			long mark = timed ? System.nanoTime() : 0;
+			long computeNanos = 0;
+			long formatNanos = 0;
+
+			InPlaceFibonacciGenerator generator = new InPlaceFibonacciGenerator( start );
+
+			// The exact size, including the separator from the previous segment
+			byte[] bytes = new byte[(int) SequencePlanner.sequenceBytes( start, count ) + ( start > 0 ? 1 : 0 )];
+			int length = 0;
+			for ( long i = 0; i < count; i++ )
+			{
+				// Separate this segment from the previous one too
+				if ( i > 0 || start > 0 )
+				{
+					bytes[length++] = ' ';
+				}
+				if ( timed )
+				{
+					long now = System.nanoTime();
+					computeNanos += now - mark;
+					mark = now;
+				}
+
+				length = generator.writeDigits( bytes, length );
+				if ( timed )
+				{
+					long now = System.nanoTime();
+					formatNanos += now - mark;
+					mark = now;
+				}
+
+				generator.advance();
+			}
+			if ( timed )
+			{
+				computeNanos += System.nanoTime() - mark;
+			}
+			return new Chunk( bytes, length, computeNanos, formatNanos );
+		}
+	}
+}
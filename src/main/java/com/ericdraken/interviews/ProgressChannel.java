@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A channel that counts the bytes of a planned decimal sequence on their
+ * way to another channel, and reports progress on a timer thread: Fibs
+ * and bytes written, Fibs per second, MB per second and the estimated
+ * time left. Since the plan knows where every run of equal digit counts
+ * ends, the byte count converts back to a Fib count with no extra work
+ * for the writer. Nothing is reported for writes that finish before the
+ * first report is due. Closing the channel closes the target.
+ *
+ * Note: Writes must come from one thread at a time.
+ */
+public class ProgressChannel implements WritableByteChannel
+{
+	private final WritableByteChannel target;
+
+	private final long start;
+
+	private final long count;
+
+	private final long totalBytes;
+
+	private final PrintStream log;
+
+	private final long startNanos = System.nanoTime();
+
+	private final Thread reporter;
+
+	// Written by the writer, read by the reporter
+	private volatile long written = 0;
+
+	// The reporter's walk through the runs of equal digit counts
+	private long fibs = 0;
+	private long fibBytes = 0;
+
+	private volatile boolean reported = false;
+
+	/**
+	 * Report progress of a sequence at a fixed interval
+	 *
+	 * @param target The channel to write to
+	 * @param start The index of the first Fib
+	 * @param count The number of Fibonacci numbers
+	 * @param log Where to print the reports
+	 * @param interval The time between reports
+	 * @param unit The unit of the interval
+	 */
+	public ProgressChannel( WritableByteChannel target, long start, long count, PrintStream log, long interval, TimeUnit unit )
+	{
+		this.target = target;
+		this.start = start;
+		this.count = count;
+		this.totalBytes = SequencePlanner.sequenceBytes( start, count );
+		this.log = log;
+
+		long millis = unit.toMillis( interval );
+		reporter = new Thread( () -> report( millis ), "fibonacci-progress" );
+		reporter.setDaemon( true );
+		reporter.start();
+	}
+
+	/**
+	 * Count the bytes and pass them on
+	 *
+	 * @param src The bytes to write
+	 * @return The number of bytes written by the target
+	 * @throws IOException If the target fails
+	 */
+	@Override
+	public int write( ByteBuffer src ) throws IOException
+	{
+		int n = target.write( src );
+		written += n;
+		return n;
+	}
+
+	/**
+	 * Return true while the target is open
+	 *
+	 * @return True if writes are accepted
+	 */
+	@Override
+	public boolean isOpen()
+	{
+		return target.isOpen();
+	}
+
+	/**
+	 * Stop reporting, print a final report if any were printed, and close the target
+	 *
+	 * @throws IOException If the target can't be closed
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		reporter.interrupt();
+		try
+		{
+			reporter.join();
+		}
+		catch ( InterruptedException e )
+		{
+			Thread.currentThread().interrupt();
+		}
+
+		try
+		{
+			target.close();
+		}
+		finally
+		{
+			if ( reported )
+			{
+				log.println( line() );
+			}
+		}
+	}
+
+	/**
+	 * The reporter loop, run on its own thread until interrupted
+	 */
+	private void report( long millis )
+	{
+		try
+		{
+			while ( true )
+			{
+				Thread.sleep( millis );
+				log.println( line() );
+				reported = true;
+			}
+		}
+		catch ( InterruptedException e )
+		{
+			// close() was called
+		}
+	}
+
+	/**
+	 * Format a progress report
+	 */
+	private String line()
+	{
+		long bytes = written;
+		long fibsWritten = fibsWithin( bytes );
+		double seconds = Math.max( 1e-9, ( System.nanoTime() - startNanos ) / 1e9 );
+		double bytesPerSecond = bytes / seconds;
+		long eta = bytesPerSecond > 0 ? (long) ( ( totalBytes - bytes ) / bytesPerSecond ) : 0;
+
+		return String.format(
+			"%,d of %,d Fibs, %,d of %,d bytes (%.1f%%), %,.0f Fibs/s, %.1f MB/s, ETA %d:%02d:%02d",
+			fibsWritten, count, bytes, totalBytes, totalBytes == 0 ? 100.0 : 100.0 * bytes / totalBytes,
+			fibsWritten / seconds, bytesPerSecond / ( 1 << 20 ), eta / 3600, eta / 60 % 60, eta % 60
+		);
+	}
+
+	/**
+	 * Return how many whole Fibs fit in the bytes written, walking forward
+	 * a run of equal digit counts at a time from the last report
+	 */
+	private long fibsWithin( long bytes )
+	{
+		while ( fibs < count )
+		{
+			long digits = SequencePlanner.digits( start + fibs );
+			long runEnd = Math.min( start + count, SequencePlanner.firstWithDigits( digits + 1 ) ) - start;
+
+			// Each Fib after the first brings a separator
+			long width = digits + 1;
+			long fit = ( bytes - fibBytes + ( fibs == 0 ? 1 : 0 ) ) / width;
+			if ( fit < runEnd - fibs )
+			{
+				// The writer is inside this run
+				return fibs + Math.max( 0, fit );
+			}
+			fibBytes += ( runEnd - fibs ) * width - ( fibs == 0 ? 1 : 0 );
+			fibs = runEnd;
+		}
+		return fibs;
+	}
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A single-pass lexer for numeric queries. Each character is looked at
+ * once, with no regular expressions, streams or substrings, and the parsed
+ * numbers are kept in this object, so lexing a line allocates nothing.
+ * The lexer is reused line after line and is not thread safe.
+ *
+ * A query is an index, a range of indices "a..b", or a list "a,b,c".
+ * Indices are non-negative and have no leading zeros. A length is a
+ * single positive number, and is hinted exactly like ValidatePositive,
+ * including its order of precedence: empty, then a leading zero, then
+ * the first offending character.
+ */
+public class QueryLexer
+{
+	final static String TOO_LARGE = "The number is too large.";
+
+	final static String BACKWARDS = "A range must not end before it starts.";
+
+	/**
+	 * The shape of a lexed query
+	 */
+	public enum Kind
+	{
+		NUMBER, RANGE, LIST
+	}
+
+	// Lets byte arrays be lexed without decoding them
+	private final ByteSequence bytes = new ByteSequence();
+
+	private long[] values = new long[8];
+
+	private int size;
+
+	private Kind kind;
+
+	/**
+	 * Lex a single positive number, such as a sequence length
+	 *
+	 * @param line The query, already trimmed
+	 * @return Null if valid, TOO_LARGE if valid but more than a long holds, or a ValidatePositive hint
+	 */
+	public String lexLength( CharSequence line )
+	{
+		return lex( line, true );
+	}
+
+	/**
+	 * Lex an index, a range or a list
+	 *
+	 * @param line The query, already trimmed
+	 * @return Null if valid, or a hint as to why it isn't
+	 */
+	public String lex( CharSequence line )
+	{
+		return lex( line, false );
+	}
+
+	/**
+	 * Lex raw ASCII bytes as an index, a range or a list. Bytes outside
+	 * ASCII are hinted like any other non-ASCII character.
+	 *
+	 * @param line The bytes holding the query
+	 * @param offset The start of the query
+	 * @param length The length of the query, already trimmed
+	 * @return Null if valid, or a hint as to why it isn't
+	 */
+	public String lex( byte[] line, int offset, int length )
+	{
+		bytes.wrap( line, offset, length );
+		return lex( bytes, false );
+	}
+
+	/**
+	 * Return the shape of the last valid query
+	 *
+	 * @return The kind of query
+	 */
+	public Kind kind()
+	{
+		return kind;
+	}
+
+	/**
+	 * Return the number, the start of the range, or the first list entry
+	 *
+	 * @return The first number of the last valid query
+	 */
+	public long first()
+	{
+		return values[0];
+	}
+
+	/**
+	 * Return the number, the inclusive end of the range, or the last list entry
+	 *
+	 * @return The last number of the last valid query
+	 */
+	public long last()
+	{
+		return values[size - 1];
+	}
+
+	/**
+	 * Return how many numbers the last valid query holds
+	 *
+	 * @return 1 for a number, 2 for a range, or the list length
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Return a number of the last valid query
+	 *
+	 * @param i The position of the number
+	 * @return The number
+	 */
+	public long get( int i )
+	{
+		if ( i < 0 || i >= size )
+		{
+			throw new IndexOutOfBoundsException( "No number at " + i + " of " + size );
+		}
+		return values[i];
+	}
+
+	/**
+	 * Scan the line once, accumulating numbers and stopping at the first offending character
+	 */
+	private String lex( CharSequence line, boolean positive )
+	{
+		int length = line.length();
+		size = 0;
+		kind = Kind.NUMBER;
+
+		if ( length == 0 )
+		{
+			return ValidatePositive.EMPTY;
+		}
+
+		boolean overflow = false;
+		int i = 0;
+		while ( true )
+		{
+			// Each number starts here
+			if ( i == length )
+			{
+				return ValidatePositive.INVALID;
+			}
+			char chr = line.charAt( i );
+			if ( chr == '0' )
+			{
+				// A lone zero is an index, but lengths and leading zeros are hinted
+				i++;
+				if ( positive || !( i == length || line.charAt( i ) == ',' || isRange( line, i ) ) )
+				{
+					return ValidatePositive.ZERO;
+				}
+				add( 0 );
+			}
+			else
+			{
+				long value = 0;
+				int start = i;
+				for ( ; i < length; i++ )
+				{
+					chr = line.charAt( i );
+
+					// ASCII '0' = 48, '9' = 57
+					if ( chr < 48 || chr > 57 )
+					{
+						break;
+					}
+					if ( value > ( Long.MAX_VALUE - ( chr - 48 ) ) / 10 )
+					{
+						// Keep scanning, since an offending character is the better hint
+						overflow = true;
+					}
+					value = value * 10 + ( chr - 48 );
+				}
+				if ( i == start )
+				{
+					return hint( chr );
+				}
+				add( value );
+			}
+
+			if ( i == length )
+			{
+				break;
+			}
+
+			// Separators between numbers
+			chr = line.charAt( i );
+			if ( !positive && kind == Kind.NUMBER && isRange( line, i ) )
+			{
+				kind = Kind.RANGE;
+				i += 2;
+			}
+			else if ( !positive && kind != Kind.RANGE && chr == ',' )
+			{
+				kind = Kind.LIST;
+				i++;
+			}
+			else
+			{
+				return hint( chr );
+			}
+		}
+
+		if ( overflow )
+		{
+			return TOO_LARGE;
+		}
+		if ( kind == Kind.RANGE && values[1] < values[0] )
+		{
+			return BACKWARDS;
+		}
+		return null;
+	}
+
+	/**
+	 * Return the hint for an offending character
+	 */
+	private static String hint( char chr )
+	{
+		if ( chr == '.' )
+		{
+			return ValidatePositive.FRACTION;
+		}
+		if ( chr >= 128 )
+		{
+			return ValidatePositive.ASCII;
+		}
+		if ( chr == ' ' )
+		{
+			return ValidatePositive.WHITESPACE;
+		}
+		return ValidatePositive.MIXED;
+	}
+
+	/**
+	 * Return true if a range separator starts at i
+	 */
+	private static boolean isRange( CharSequence line, int i )
+	{
+		return i + 1 < line.length() && line.charAt( i ) == '.' && line.charAt( i + 1 ) == '.';
+	}
+
+	/**
+	 * Append a number, growing the array only for long lists
+	 */
+	private void add( long value )
+	{
+		if ( size == values.length )
+		{
+			values = Arrays.copyOf( values, size * 2 );
+		}
+		values[size++] = value;
+	}
+
+	/**
+	 * A reusable view of a byte array as characters
+	 */
+	private static class ByteSequence implements CharSequence
+	{
+		private byte[] bytes;
+
+		private int offset;
+
+		private int length;
+
+		/**
+		 * Point the view at a new slice
+		 */
+		void wrap( byte[] bytes, int offset, int length )
+		{
+			this.bytes = bytes;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		@Override
+		public int length()
+		{
+			return length;
+		}
+
+		@Override
+		public char charAt( int index )
+		{
+			return (char) ( bytes[offset + index] & 0xFF );
+		}
+
+		@Override
+		public CharSequence subSequence( int start, int end )
+		{
+			return new String( bytes, offset + start, end - start, StandardCharsets.ISO_8859_1 );
+		}
+	}
+}
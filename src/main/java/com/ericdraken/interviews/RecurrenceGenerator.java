@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static com.ericdraken.interviews.InPlaceFibonacciGenerator.LIMB_BASE;
+import static com.ericdraken.interviews.InPlaceFibonacciGenerator.LIMB_DIGITS;
+
+/**
+ * A sequential generator for any LinearRecurrence with non-negative
+ * coefficients and seeds. The last k terms are kept in a ring of
+ * reusable base 10^9 limb arrays, and each step overwrites the oldest
+ * term with the weighted sum of all k, so stepping through the sequence
+ * allocates nothing once the arrays are big enough.
+ *
+ * Note: This is not thread safe. Use one generator per thread.
+ */
+public class RecurrenceGenerator implements SequenceGenerator
+{
+	// A limb times the coefficient sum, plus the carry, must fit in a long
+	final static long MAX_COEFFICIENT_SUM = Long.MAX_VALUE / LIMB_BASE - 1;
+
+	private final LinearRecurrence recurrence;
+
+	// Coefficients of a(n-1) to a(n-k)
+	private final long[] coefficients;
+
+	// Little-endian limbs of a(position) to a(position + k - 1) in a ring starting at [head]
+	private final int[][] terms;
+
+	private final int[] lengths;
+
+	private int head;
+
+	private long position;
+
+	/**
+	 * Start the sequence at a(start), seeded directly by Kitamasa's method
+	 *
+	 * @param recurrence The recurrence to generate
+	 * @param start The index of the first current term
+	 * @throws IllegalArgumentException If start is negative, or the recurrence
+	 *                                  can produce negative terms or overflow a limb
+	 */
+	public RecurrenceGenerator( LinearRecurrence recurrence, long start )
+	{
+		long sum = recurrence.coefficientSum();
+		if ( sum < 0 || !recurrence.hasNonNegativeSeeds() )
+		{
+			throw new IllegalArgumentException( "The generator needs non-negative coefficients and seeds" );
+		}
+		if ( sum > MAX_COEFFICIENT_SUM )
+		{
+			throw new IllegalArgumentException( "The coefficients may sum to at most " + MAX_COEFFICIENT_SUM + ", not " + sum );
+		}
+
+		int k = recurrence.order();
+		this.recurrence = recurrence;
+		this.coefficients = new long[k];
+		for ( int i = 0; i < k; i++ )
+		{
+			coefficients[i] = recurrence.coefficient( i );
+		}
+		this.terms = new int[k][];
+		this.lengths = new int[k];
+		seek( start );
+	}
+
+	/**
+	 * Jump to index n without generating the earlier terms.
+	 * This allocates, unlike advance().
+	 *
+	 * @param n The zero-based index to jump to
+	 * @throws IllegalArgumentException If n is negative
+	 */
+	@Override
+	public void seek( long n )
+	{
+		BigInteger[] window = recurrence.window( n );
+		DecimalFormatter formatter = new DecimalFormatter();
+		for ( int j = 0; j < window.length; j++ )
+		{
+			terms[j] = InPlaceFibonacciGenerator.toLimbs( formatter.toBytes( window[j] ) );
+			lengths[j] = InPlaceFibonacciGenerator.length( terms[j] );
+		}
+		head = 0;
+		position = n;
+	}
+
+	/**
+	 * Step to the next term by writing a(position + k) over the array
+	 * of a(position), which is no longer needed. Each limb of the oldest
+	 * term is read before it is overwritten, so the sum is done in place.
+	 * The arrays only grow when the sum needs more limbs.
+	 */
+	@Override
+	public void advance()
+	{
+		int k = terms.length;
+		int longest = 0;
+		for ( int length : lengths )
+		{
+			longest = Math.max( longest, length );
+		}
+
+		// The carry out of the top limb is below the coefficient sum, so two more limbs suffice
+		int[] sum = terms[head];
+		if ( sum.length < longest + 2 )
+		{
+			sum = Arrays.copyOf( sum, Math.max( longest + 2, sum.length * 2 ) );
+			terms[head] = sum;
+		}
+
+		long carry = 0;
+		int i = 0;
+		for ( ; i < longest; i++ )
+		{
+			long limb = carry;
+			for ( int c = 0; c < k; c++ )
+			{
+				// c[c] multiplies the term c places back from the newest
+				int term = ( head + k - 1 - c ) % k;
+				if ( i < lengths[term] )
+				{
+					limb += coefficients[c] * terms[term][i];
+				}
+			}
+			sum[i] = (int) ( limb % LIMB_BASE );
+			carry = limb / LIMB_BASE;
+		}
+		for ( ; carry != 0; i++ )
+		{
+			sum[i] = (int) ( carry % LIMB_BASE );
+			carry /= LIMB_BASE;
+		}
+
+		// Drop leading zero limbs, keeping one for a zero term
+		while ( i > 1 && sum[i - 1] == 0 )
+		{
+			i--;
+		}
+		lengths[head] = i;
+
+		head = ( head + 1 ) % k;
+		position++;
+	}
+
+	/**
+	 * Return the index of the current term
+	 *
+	 * @return The current zero-based position
+	 */
+	@Override
+	public long position()
+	{
+		return position;
+	}
+
+	/**
+	 * Return the exact number of decimal digits of the current term
+	 *
+	 * @return The digit count, at least 1
+	 */
+	@Override
+	public int digitCount()
+	{
+		int[] a = terms[head];
+		int length = lengths[head];
+		int digits = 1;
+		for ( int top = a[length - 1] / 10; top > 0; top /= 10 )
+		{
+			digits++;
+		}
+		return ( length - 1 ) * LIMB_DIGITS + digits;
+	}
+
+	/**
+	 * Return the number of digits of the current term, since a general
+	 * recurrence has no cheap bound on the later ones
+	 *
+	 * @param count The number of terms to be written, at least 1
+	 * @return The digit count of the current term
+	 */
+	@Override
+	public int maxDigits( long count )
+	{
+		return digitCount();
+	}
+
+	/**
+	 * Write the decimal digits of the current term into a byte buffer
+	 *
+	 * @param dst The destination buffer with at least digitCount() bytes free
+	 * @param offset The position in dst to start writing at
+	 * @return The position in dst after the last digit written
+	 */
+	@Override
+	public int writeDigits( byte[] dst, int offset )
+	{
+		int[] a = terms[head];
+		int length = lengths[head];
+
+		// The most significant limb is not zero-padded
+		offset = DecimalFormatter.format( a[length - 1], dst, offset );
+		for ( int i = length - 2; i >= 0; i-- )
+		{
+			int limb = a[i];
+			for ( int j = offset + LIMB_DIGITS - 1; j >= offset; j-- )
+			{
+				dst[j] = (byte) ( '0' + limb % 10 );
+				limb /= 10;
+			}
+			offset += LIMB_DIGITS;
+		}
+		return offset;
+	}
+
+	/**
+	 * Return a copy of the current term. This allocates and is meant
+	 * for interoperability, not for the generation loop.
+	 *
+	 * @return The current term
+	 */
+	@Override
+	public BigInteger toBigInteger()
+	{
+		byte[] digits = new byte[digitCount()];
+		writeDigits( digits, 0 );
+		return new BigInteger( new String( digits, StandardCharsets.US_ASCII ) );
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import java.math.BigInteger;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A splittable source of the terms a(from) to a(to - 1) of a linear
+ * recurrence for parallel streams. Splitting hands the first half to a
+ * new spliterator and keeps the second half, which seeds its window of
+ * k terms directly by Kitamasa's method the first time it is traversed.
+ * Each half then walks its own range with additions.
+ */
+public class RecurrenceSpliterator implements Spliterator<BigInteger>
+{
+	// Below this many terms the cost of seeding a half isn't recovered
+	private final static long MIN_SPLIT_SIZE = 1_000;
+
+	private final LinearRecurrence recurrence;
+
+	// The index of the next term to return
+	private long from;
+
+	// The index just past the last term to return
+	private final long to;
+
+	// a(from) to a(from + k - 1) in a ring starting at [head], or null until the first traversal
+	private BigInteger[] window;
+
+	private int head;
+
+	/**
+	 * Cover the index range [from, to)
+	 *
+	 * @param recurrence The recurrence to generate
+	 * @param from The index of the first term
+	 * @param to The index just past the last term
+	 * @throws IllegalArgumentException If from is negative or the range is backwards
+	 */
+	public RecurrenceSpliterator( LinearRecurrence recurrence, long from, long to )
+	{
+		this( recurrence, from, to, null, 0 );
+		if ( from < 0 || to < from )
+		{
+			throw new IllegalArgumentException( "Invalid sequence index range: [" + from + ", " + to + ")" );
+		}
+	}
+
+	/**
+	 * Cover a range, with its window if already known
+	 */
+	private RecurrenceSpliterator( LinearRecurrence recurrence, long from, long to, BigInteger[] window, int head )
+	{
+		this.recurrence = recurrence;
+		this.from = from;
+		this.to = to;
+		this.window = window;
+		this.head = head;
+	}
+
+	/**
+	 * Pass the next term to the action, if any remain
+	 *
+	 * @param action The consumer of the term
+	 * @return True if a term was passed
+	 */
+	@Override
+	public boolean tryAdvance( Consumer<? super BigInteger> action )
+	{
+		if ( from >= to )
+		{
+			return false;
+		}
+		seed();
+		action.accept( shift() );
+		return true;
+	}
+
+	/**
+	 * Pass every remaining term to the action in order
+	 *
+	 * @param action The consumer of the terms
+	 */
+	@Override
+	public void forEachRemaining( Consumer<? super BigInteger> action )
+	{
+		if ( from >= to )
+		{
+			return;
+		}
+		seed();
+		while ( from < to )
+		{
+			action.accept( shift() );
+		}
+	}
+
+	/**
+	 * Split off the first half of the remaining range
+	 *
+	 * @return The first half, or null if the range is too small to split
+	 */
+	@Override
+	public Spliterator<BigInteger> trySplit()
+	{
+		long size = to - from;
+		if ( size < MIN_SPLIT_SIZE * 2 )
+		{
+			return null;
+		}
+
+		// The prefix keeps any window already computed, and this half seeds lazily
+		long mid = from + size / 2;
+		RecurrenceSpliterator prefix = new RecurrenceSpliterator( recurrence, from, mid, window, head );
+		from = mid;
+		window = null;
+		head = 0;
+		return prefix;
+	}
+
+	/**
+	 * Return the exact number of terms remaining
+	 *
+	 * @return The remaining count
+	 */
+	@Override
+	public long estimateSize()
+	{
+		return to - from;
+	}
+
+	/**
+	 * The range is exactly sized, in order, and never changes
+	 *
+	 * @return The spliterator characteristics
+	 */
+	@Override
+	public int characteristics()
+	{
+		return SIZED | SUBSIZED | ORDERED | IMMUTABLE | NONNULL;
+	}
+
+	/**
+	 * Compute the starting window if it isn't known yet
+	 */
+	private void seed()
+	{
+		if ( window == null )
+		{
+			window = recurrence.window( from );
+			head = 0;
+		}
+	}
+
+	/**
+	 * Return the current term and replace it with the term k places later
+	 */
+	private BigInteger shift()
+	{
+		BigInteger current = window[head];
+		window[head] = recurrence.next( window, head );
+		head = ( head + 1 ) % window.length;
+		from++;
+		return current;
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import java.math.BigInteger;
+
+/**
+ * A sequential generator of non-negative integer sequences that keeps
+ * its terms in reusable base 10^9 limb arrays, so stepping forward
+ * allocates nothing once the arrays are big enough. The current term
+ * is written straight into a byte buffer as decimal digits, which is
+ * all the text writers need.
+ *
+ * Note: Implementations are not thread safe. Use one generator per thread.
+ */
+public interface SequenceGenerator
+{
+	/**
+	 * Jump to index n without generating the earlier terms.
+	 * This allocates, unlike advance().
+	 *
+	 * @param n The zero-based index to jump to
+	 * @throws IllegalArgumentException If n is negative
+	 */
+	void seek( long n );
+
+	/**
+	 * Step to the next term in place
+	 */
+	void advance();
+
+	/**
+	 * Return the index of the current term
+	 *
+	 * @return The current zero-based position
+	 */
+	long position();
+
+	/**
+	 * Return the exact number of decimal digits of the current term
+	 *
+	 * @return The digit count, at least 1
+	 */
+	int digitCount();
+
+	/**
+	 * Return the number of decimal digits to size a buffer for the next
+	 * [count] terms from the current one. Generators that can bound the
+	 * longest of them cheaply return that bound, and others return
+	 * digitCount(), so writers must still grow when a term is longer.
+	 *
+	 * @param count The number of terms to be written, at least 1
+	 * @return The digit count hint, at least digitCount()
+	 */
+	int maxDigits( long count );
+
+	/**
+	 * Write the decimal digits of the current term into a byte buffer
+	 *
+	 * @param dst The destination buffer with at least digitCount() bytes free
+	 * @param offset The position in dst to start writing at
+	 * @return The position in dst after the last digit written
+	 */
+	int writeDigits( byte[] dst, int offset );
+
+	/**
+	 * Return a copy of the current term. This allocates and is meant
+	 * for interoperability, not for the generation loop.
+	 *
+	 * @return The current term
+	 */
+	BigInteger toBigInteger();
+}
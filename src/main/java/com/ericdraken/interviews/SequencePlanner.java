@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Predicts the exact size of a decimal sequence before generating it.
+ * By Binet's formula F(n) is the integer nearest phi^n / sqrt(5), so F(n)
+ * has floor( n * log10(phi) - log10(sqrt(5)) ) + 1 digits. Doubles are
+ * exact enough unless the logarithm is within rounding error of an integer,
+ * and then it is recomputed with BigDecimal. Fibs that fit in a long are
+ * counted directly.
+ *
+ * The digit count only changes every four or five Fibs, so a sequence is
+ * sized by walking its runs of equal digit counts rather than its Fibs.
+ */
+public final class SequencePlanner
+{
+	// 40 digits, so even n near Long.MAX_VALUE keeps 20 correct fractional digits
+	private final static BigDecimal LOG10_PHI_EXACT = new BigDecimal( "0.2089876402499787337692720892375554168225" );
+
+	private final static BigDecimal LOG10_SQRT5_EXACT = new BigDecimal( "0.3494850021680094023931305526377534866159" );
+
+	private final static double LOG10_PHI = LOG10_PHI_EXACT.doubleValue();
+
+	private final static double LOG10_SQRT5 = LOG10_SQRT5_EXACT.doubleValue();
+
+	// Digit counts of F(0) to F(92), the Fibs that fit in a long
+	private final static int[] SMALL_DIGITS = new int[LongFibonacciIterator.MAX_INDEX + 1];
+
+	static
+	{
+		LongFibonacciIterator it = new LongFibonacciIterator();
+		for ( int n = 0; n < SMALL_DIGITS.length; n++ )
+		{
+			SMALL_DIGITS[n] = Long.toString( it.nextLong() ).length();
+		}
+	}
+
+	private SequencePlanner()
+	{
+		// Static utility class
+	}
+
+	/**
+	 * Return the number of decimal digits of F(n)
+	 *
+	 * @param n The zero-based index into the sequence, F(0) = 0
+	 * @return The digit count, at least 1
+	 * @throws IllegalArgumentException If n is negative
+	 */
+	public static long digits( long n )
+	{
+		if ( n < 0 )
+		{
+			throw new IllegalArgumentException( "The Fibonacci index must not be negative: " + n );
+		}
+		if ( n < SMALL_DIGITS.length )
+		{
+			return SMALL_DIGITS[(int) n];
+		}
+
+		double log = n * LOG10_PHI - LOG10_SQRT5;
+		double floor = Math.floor( log );
+
+		// The product loses about one ulp of n * log10(phi) to rounding
+		double error = Math.ulp( log ) * 4;
+		if ( log - floor > error && floor + 1 - log > error )
+		{
+			return (long) floor + 1;
+		}
+
+		BigDecimal exact = LOG10_PHI_EXACT.multiply( BigDecimal.valueOf( n ) ).subtract( LOG10_SQRT5_EXACT );
+		return exact.toBigInteger().longValueExact() + 1;
+	}
+
+	/**
+	 * Return the exact number of bytes in the decimal sequence
+	 * F(start) to F(start + count - 1) separated by single spaces
+	 *
+	 * @param start The index of the first Fib
+	 * @param count The number of Fibonacci numbers
+	 * @return The byte count
+	 * @throws IllegalArgumentException If start or count is negative
+	 * @throws ArithmeticException If the size doesn't fit in a long
+	 */
+	public static long sequenceBytes( long start, long count )
+	{
+		if ( start < 0 || count < 0 )
+		{
+			throw new IllegalArgumentException( "Invalid sequence: " + count + " Fibs from " + start );
+		}
+		if ( count == 0 )
+		{
+			return 0;
+		}
+
+		// One separator between each pair of Fibs
+		long total = count - 1;
+		long end = Math.addExact( start, count );
+		for ( long n = start; n < end; )
+		{
+			long digits = digits( n );
+			long next = Math.min( end, firstWithDigits( digits + 1 ) );
+			total = Math.addExact( total, Math.multiplyExact( digits, next - n ) );
+			n = next;
+		}
+		return total;
+	}
+
+	/**
+	 * Return the smallest index whose Fib has at least [digits] digits
+	 *
+	 * @param digits The digit count
+	 * @return The index where the digit count is first reached
+	 */
+	static long firstWithDigits( long digits )
+	{
+		if ( digits <= SMALL_DIGITS[SMALL_DIGITS.length - 1] )
+		{
+			int n = 0;
+			while ( SMALL_DIGITS[n] < digits )
+			{
+				n++;
+			}
+			return n;
+		}
+
+		// Invert the digit formula, then step across the boundary exactly
+		long n = Math.max( SMALL_DIGITS.length, (long) Math.ceil( ( digits - 1 + LOG10_SQRT5 ) / LOG10_PHI ) );
+		while ( n > SMALL_DIGITS.length && digits( n - 1 ) >= digits )
+		{
+			n--;
+		}
+		while ( digits( n ) < digits )
+		{
+			n++;
+		}
+		return n;
+	}
+
+	/**
+	 * Fail before generating anything if the file's disk can't hold the output
+	 *
+	 * @param file The output file, which may not exist yet
+	 * @param bytes The size of the output
+	 * @throws IOException If there isn't enough usable space
+	 */
+	public static void checkFreeSpace( Path file, long bytes ) throws IOException
+	{
+		Path dir = file.toAbsolutePath().getParent();
+		long usable = Files.getFileStore( dir ).getUsableSpace();
+		if ( usable < bytes )
+		{
+			throw new IOException( String.format( "Not enough disk space: %,d bytes are needed but %,d are free", bytes, usable ) );
+		}
+	}
+
+	/**
+	 * Set an empty file to its final length before writing it sequentially,
+	 * by writing its last byte. Most file systems only record the length and
+	 * leave a sparse hole, so no blocks are reserved and the disk can still
+	 * fill up during the write; checkFreeSpace is the guard for that. Until the
+	 * write completes the file has its final size with zeros in the hole, so a
+	 * failed write must be discarded. The channel position is left at the start.
+	 *
+	 * @param channel The output file
+	 * @param bytes The size of the output
+	 * @throws IOException If the file's length can't be set
+	 */
+	public static void preallocate( FileChannel channel, long bytes ) throws IOException
+	{
+		if ( bytes > 0 )
+		{
+			channel.write( ByteBuffer.allocate( 1 ), bytes - 1 );
+		}
+	}
+
+	/**
+	 * Delete an output file after its write failed, so a preallocated file
+	 * with a zero-filled tail isn't mistaken for a complete one
+	 *
+	 * @param file The output file, which may not exist
+	 * @param failure The write failure, to which a failure to delete is added
+	 */
+	public static void discard( Path file, Throwable failure )
+	{
+		try
+		{
+			Files.deleteIfExists( file );
+		}
+		catch ( IOException e )
+		{
+			failure.addSuppressed( e );
+		}
+	}
+}
@@ -0,0 +1,357 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Generates a huge range of the sequence across several worker processes,
+ * so no single JVM is limited by its heap or its collector. The range is
+ * cut into shards of about equal size in bytes, and each shard is written
+ * by a ShardWorker process to its own file in a directory beside the output.
+ * The shard files are then joined into the output with FileChannel.transferTo,
+ * which the kernel can do without copying the bytes through the heap.
+ *
+ * Shards that fail are retried, and shard files that are already complete
+ * are reused, so an interrupted run resumes where it stopped. A shard file
+ * is named after its range, and the ranges depend only on the start, count
+ * and number of shards, not on how many workers run at once. A resumed run
+ * must therefore ask for the same number of shards to reuse them, and files
+ * left by a different plan are deleted before generating. Workers are
+ * launched with a configurable command prefix, so they can run on other
+ * hosts, e.g. through ssh, as long as the shard directory is on a shared
+ * file system.
+ */
+public class ShardCoordinator
+{
+	// Shard files live in a directory named after the output with this suffix
+	final static String SHARD_DIR_SUFFIX = ".shards";
+
+	// Suffix of a complete shard file
+	final static String SHARD_SUFFIX = ".part";
+
+	// Attempts per shard before the whole run fails
+	public final static int DEFAULT_ATTEMPTS = 3;
+
+	// Below this many Fibs a shard isn't worth a JVM startup
+	private final static long MIN_SHARD_LENGTH = 1_000;
+
+	private final List<String> command;
+
+	private final int processes;
+
+	private final int attempts;
+
+	/**
+	 * Launch local worker JVMs with this JVM's class path, one per core
+	 */
+	public ShardCoordinator()
+	{
+		this( localWorkerCommand(), Runtime.getRuntime().availableProcessors(), DEFAULT_ATTEMPTS );
+	}
+
+	/**
+	 * Launch workers with a specific command
+	 *
+	 * @param command The command prefix that runs ShardWorker, to which
+	 *                START COUNT SEPARATED FILE are appended
+	 * @param processes The most workers to run at once
+	 * @param attempts The attempts per shard before giving up
+	 */
+	public ShardCoordinator( List<String> command, int processes, int attempts )
+	{
+		if ( command.isEmpty() || processes < 1 || attempts < 1 )
+		{
+			throw new IllegalArgumentException( "A worker command, at least one process and one attempt are needed" );
+		}
+		this.command = Collections.unmodifiableList( new ArrayList<>( command ) );
+		this.processes = processes;
+		this.attempts = attempts;
+	}
+
+	/**
+	 * Return the command that runs a ShardWorker in a local JVM
+	 * with the same Java installation and class path as this one
+	 *
+	 * @return The command prefix
+	 */
+	public static List<String> localWorkerCommand()
+	{
+		String java = Paths.get( System.getProperty( "java.home" ), "bin", "java" ).toString();
+		return Arrays.asList( java, "-cp", System.getProperty( "java.class.path" ), ShardWorker.class.getName() );
+	}
+
+	/**
+	 * Write [count] Fibs starting at F(start) separated by spaces to a file
+	 *
+	 * @param start The index of the first Fib
+	 * @param count The number of Fibonacci numbers to write
+	 * @param shards The number of shards to cut the range into
+	 * @param output The output file
+	 * @return The number of bytes written
+	 * @throws IOException If a shard still fails after its last attempt, or the output can't be written.
+	 *                     Completed shards are kept, so the same call resumes from them.
+	 * @throws InterruptedException If interrupted while waiting for the workers, which are stopped
+	 */
+	public long write( long start, long count, int shards, Path output ) throws IOException, InterruptedException
+	{
+		long[] bounds = plan( start, count, shards );
+		Path dir = output.resolveSibling( output.getFileName() + SHARD_DIR_SUFFIX );
+		Files.createDirectories( dir );
+		deleteUnplanned( dir, bounds );
+
+		// Each shard is deleted once it is joined, so the disk holds at most the whole sequence plus one shard
+		long largest = 0;
+		for ( int i = 0; i + 1 < bounds.length; i++ )
+		{
+			largest = Math.max( largest, ShardWorker.expectedSize( bounds[i], bounds[i + 1] - bounds[i], i > 0 ) );
+		}
+		SequencePlanner.checkFreeSpace( output, SequencePlanner.sequenceBytes( start, count ) + largest );
+
+		// Each shard waits on its worker process on its own thread
+		List<Path> files = new ArrayList<>();
+		List<Future<?>> results = new ArrayList<>();
+		ExecutorService pool = Executors.newFixedThreadPool( processes );
+		try
+		{
+			for ( int i = 0; i + 1 < bounds.length; i++ )
+			{
+				long first = bounds[i];
+				long length = bounds[i + 1] - first;
+				boolean separated = i > 0;
+				Path file = shardFile( dir, first, length );
+				files.add( file );
+				results.add( pool.submit( () -> {
+					generate( first, length, separated, file );
+					return null;
+				} ) );
+			}
+
+			List<String> failures = new ArrayList<>();
+			for ( Future<?> result : results )
+			{
+				try
+				{
+					result.get();
+				}
+				catch ( ExecutionException e )
+				{
+					failures.add( e.getCause().getMessage() );
+				}
+			}
+			if ( !failures.isEmpty() )
+			{
+				throw new IOException( failures.size() + " of " + files.size() + " shards failed: " + String.join( "; ", failures ) );
+			}
+		}
+		finally
+		{
+			// Stops any workers still running if this thread was interrupted
+			pool.shutdownNow();
+		}
+
+		long written = concatenate( files, output );
+		Files.deleteIfExists( dir );
+		return written;
+	}
+
+	/**
+	 * Cut [start, start + count) into shards of about the same size in bytes.
+	 * F(n) has about n * log10(phi) digits, so the bytes up to n grow as n^2,
+	 * and the bounds are where that curve crosses equal steps.
+	 *
+	 * @param start The index of the first Fib
+	 * @param count The number of Fibonacci numbers
+	 * @param shards The number of shards wanted
+	 * @return The shard bounds, from start to start + count, with at least one Fib per shard
+	 */
+	static long[] plan( long start, long count, int shards )
+	{
+		if ( start < 0 || count < 1 || shards < 1 )
+		{
+			throw new IllegalArgumentException( "Invalid shard plan: " + count + " Fibs from " + start + " in " + shards + " shards" );
+		}
+		long end = Math.addExact( start, count );
+		shards = (int) Math.max( 1, Math.min( shards, count / MIN_SHARD_LENGTH ) );
+
+		// Cumulative bytes up to n, approximately a digit count of L*n plus a separator
+		double l = Math.log10( ( 1 + Math.sqrt( 5 ) ) / 2 );
+		double first = l * start * start / 2 + 2.0 * start;
+		double last = l * end * end / 2 + 2.0 * end;
+
+		long[] bounds = new long[shards + 1];
+		bounds[0] = start;
+		bounds[shards] = end;
+		for ( int i = 1; i < shards; i++ )
+		{
+			double target = first + ( last - first ) * i / shards;
+			long n = (long) ( ( Math.sqrt( 4 + 2 * l * target ) - 2 ) / l );
+
+			// Keep every shard non-empty despite rounding
+			bounds[i] = Math.max( bounds[i - 1] + 1, Math.min( n, end - ( shards - i ) ) );
+		}
+		return bounds;
+	}
+
+	/**
+	 * Delete the files in the shard directory that aren't shards of this plan,
+	 * such as the shards of a run that asked for a different number of them
+	 */
+	private static void deleteUnplanned( Path dir, long[] bounds ) throws IOException
+	{
+		Set<Path> planned = new HashSet<>();
+		for ( int i = 0; i + 1 < bounds.length; i++ )
+		{
+			planned.add( shardFile( dir, bounds[i], bounds[i + 1] - bounds[i] ) );
+		}
+		try ( DirectoryStream<Path> files = Files.newDirectoryStream( dir ) )
+		{
+			for ( Path file : files )
+			{
+				if ( !planned.contains( file ) )
+				{
+					Files.delete( file );
+				}
+			}
+		}
+	}
+
+	/**
+	 * Return the file of the shard of [count] Fibs from F(first)
+	 */
+	private static Path shardFile( Path dir, long first, long count )
+	{
+		return dir.resolve( first + "-" + count + SHARD_SUFFIX );
+	}
+
+	/**
+	 * Run workers for a shard until its file is complete, unless it already is
+	 */
+	private void generate( long start, long count, boolean separated, Path file ) throws IOException, InterruptedException
+	{
+		long size = ShardWorker.expectedSize( start, count, separated );
+		String reason = null;
+		for ( int attempt = 0; attempt < attempts; attempt++ )
+		{
+			// A shard file only gets its name once complete, so checking its size guards against truncation
+			if ( Files.exists( file ) )
+			{
+				if ( Files.size( file ) == size )
+				{
+					return;
+				}
+				Files.delete( file );
+			}
+
+			List<String> args = new ArrayList<>( command );
+			args.add( Long.toString( start ) );
+			args.add( Long.toString( count ) );
+			args.add( Boolean.toString( separated ) );
+			args.add( file.toString() );
+			Process process = new ProcessBuilder( args ).inheritIO().start();
+			try
+			{
+				int status = process.waitFor();
+				reason = "exit status " + status;
+			}
+			finally
+			{
+				process.destroy();
+			}
+		}
+
+		if ( Files.exists( file ) && Files.size( file ) == size )
+		{
+			return;
+		}
+		throw new IOException( "Shard " + file.getFileName() + " failed after " + attempts + " attempts, last with " + reason );
+	}
+
+	/**
+	 * Join the shard files in order with zero-copy transfers, deleting
+	 * each one once it is in the output. If joining fails, the shards
+	 * already deleted are generated again by the next run.
+	 */
+	private static long concatenate( List<Path> files, Path output ) throws IOException
+	{
+		long written = 0;
+		try ( FileChannel out = FileChannel.open( output, CREATE, TRUNCATE_EXISTING, WRITE ) )
+		{
+			for ( Path file : files )
+			{
+				try ( FileChannel in = FileChannel.open( file, READ ) )
+				{
+					// transferTo may move fewer bytes than asked
+					long size = in.size();
+					for ( long position = 0; position < size; )
+					{
+						long transferred = in.transferTo( position, size - position, out );
+						if ( transferred == 0 )
+						{
+							throw new IOException( "Unable to join the shard " + file.getFileName() + " at byte " + position );
+						}
+						position += transferred;
+					}
+					written += size;
+				}
+				Files.delete( file );
+			}
+			out.force( false );
+		}
+		return written;
+	}
+
+	/**
+	 * Write a range of the sequence to a file with local worker JVMs
+	 *
+	 * @param args FILE START COUNT SHARDS, then optionally the worker command prefix
+	 */
+	public static void main( String[] args )
+	{
+		if ( args.length < 4 )
+		{
+			System.err.println( "Usage: ShardCoordinator FILE START COUNT SHARDS [WORKER COMMAND...]" );
+			System.exit( 2 );
+		}
+
+		ShardCoordinator coordinator = args.length == 4 ? new ShardCoordinator() : new ShardCoordinator(
+			Arrays.asList( args ).subList( 4, args.length ), Runtime.getRuntime().availableProcessors(), DEFAULT_ATTEMPTS );
+		try
+		{
+			Path output = Paths.get( args[0] );
+			long written = coordinator.write( Long.parseLong( args[1] ), Long.parseLong( args[2] ), Integer.parseInt( args[3] ), output );
+			System.out.println( String.format( "Wrote %,d bytes to %s.", written, output ) );
+		}
+		catch ( IOException | IllegalArgumentException e )
+		{
+			System.err.println( "Unable to write the sharded sequence. Reason: " + e.getMessage() );
+			System.exit( 1 );
+		}
+		catch ( InterruptedException e )
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * The worker process of a ShardCoordinator. It writes one shard of
+ * the sequence, seeded directly at its first index, to a temporary file
+ * beside the shard file and renames it into place only once every byte
+ * is on disk. A shard file that exists is therefore always complete,
+ * which is what lets the coordinator resume after a crash.
+ *
+ * Usage: ShardWorker START COUNT SEPARATED FILE
+ * where SEPARATED is true if the shard starts with a space to follow
+ * the shard before it. The exit status is 0 on success.
+ */
+public final class ShardWorker
+{
+	// Suffix of a shard file that is still being written
+	final static String TEMP_SUFFIX = ".tmp";
+
+	private ShardWorker()
+	{
+		// Static utility class
+	}
+
+	/**
+	 * Write one shard and exit
+	 *
+	 * @param args START COUNT SEPARATED FILE
+	 */
+	public static void main( String[] args )
+	{
+		if ( args.length != 4 )
+		{
+			System.err.println( "Usage: ShardWorker START COUNT SEPARATED FILE" );
+			System.exit( 2 );
+		}
+
+		try
+		{
+			write( Long.parseLong( args[0] ), Long.parseLong( args[1] ), Boolean.parseBoolean( args[2] ), Paths.get( args[3] ) );
+		}
+		catch ( IOException | RuntimeException e )
+		{
+			System.err.println( "Unable to write the shard " + args[3] + ". Reason: " + e.getMessage() );
+			System.exit( 1 );
+		}
+	}
+
+	/**
+	 * Write [count] Fibs starting at F(start) to a shard file, atomically
+	 *
+	 * @param start The index of the first Fib
+	 * @param count The number of Fibonacci numbers to write
+	 * @param separated True to start with a space
+	 * @param file The shard file, which appears only once complete
+	 * @throws IOException If the shard can't be written or renamed
+	 */
+	static void write( long start, long count, boolean separated, Path file ) throws IOException
+	{
+		Path temp = file.resolveSibling( file.getFileName() + TEMP_SUFFIX );
+		try ( FileChannel channel = FileChannel.open( temp, CREATE, TRUNCATE_EXISTING, WRITE ) )
+		{
+			SequencePlanner.preallocate( channel, expectedSize( start, count, separated ) );
+			if ( separated )
+			{
+				ChannelSequenceWriter.writeFully( ByteBuffer.wrap( new byte[]{ ' ' } ), channel );
+			}
+			new ChannelSequenceWriter().write( start, count, channel );
+
+			// The shard must survive a crash once it has its final name
+			channel.force( false );
+		}
+		catch ( IOException | RuntimeException e )
+		{
+			SequencePlanner.discard( temp, e );
+			throw e;
+		}
+		Files.move( temp, file, ATOMIC_MOVE, REPLACE_EXISTING );
+	}
+
+	/**
+	 * Return the exact size of a complete shard file
+	 *
+	 * @param start The index of the first Fib
+	 * @param count The number of Fibonacci numbers
+	 * @param separated True if the shard starts with a space
+	 * @return The size in bytes
+	 */
+	static long expectedSize( long start, long count, boolean separated )
+	{
+		return SequencePlanner.sequenceBytes( start, count ) + ( separated ? 1 : 0 );
+	}
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A least-recently-used cache of the formatted decimal digits of Fibs,
+ * keyed by index. Eviction is by total retained bytes rather than entry
+ * count, since F(n) grows linearly in size with n. Repeated and overlapping
+ * queries are served from the cached bytes without recomputing or
+ * re-formatting, and runs of misses are generated sequentially.
+ *
+ * The cached arrays are shared and must not be modified by callers.
+ */
+public class TermCache
+{
+	// Enough for every Fib the console displays many times over
+	public final static long DEFAULT_MAX_BYTES = 16 << 20;
+
+	// Approximate heap cost of a map entry, its key and the array header
+	private final static int ENTRY_OVERHEAD = 80;
+
+	// Buffer used when writing cached Fibs to a channel
+	private final static int WRITE_BUFFER_SIZE = 1 << 16;
+
+	private final long maxBytes;
+
+	// Access-ordered, so iteration starts at the least recently used
+	private final LinkedHashMap<Long, byte[]> entries = new LinkedHashMap<>( 16, 0.75f, true );
+
+	private long retainedBytes = 0;
+
+	private long hits = 0;
+
+	private long misses = 0;
+
+	private long evictions = 0;
+
+	/**
+	 * Use the default size limit
+	 */
+	public TermCache()
+	{
+		this( DEFAULT_MAX_BYTES );
+	}
+
+	/**
+	 * Use a specific size limit
+	 *
+	 * @param maxBytes The most bytes the cached digits may retain
+	 */
+	public TermCache( long maxBytes )
+	{
+		if ( maxBytes < 0 )
+		{
+			throw new IllegalArgumentException( "The cache size must not be negative: " + maxBytes );
+		}
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Return the cached digits of F(n), or null on a miss
+	 *
+	 * @param n The zero-based index
+	 * @return The ASCII digits, or null
+	 */
+	public synchronized byte[] getIfPresent( long n )
+	{
+		byte[] digits = entries.get( n );
+		if ( digits == null )
+		{
+			misses++;
+		}
+		else
+		{
+			hits++;
+		}
+		return digits;
+	}
+
+	/**
+	 * Return the digits of F(n), computing and caching them on a miss
+	 *
+	 * @param n The zero-based index
+	 * @return The ASCII digits
+	 */
+	public byte[] get( long n )
+	{
+		byte[] digits = getIfPresent( n );
+		if ( digits == null )
+		{
+			// Compute outside the lock so other queries aren't blocked
+			digits = new DecimalFormatter().toBytes( Fibonacci.term( n ) );
+			put( n, digits );
+		}
+		return digits;
+	}
+
+	/**
+	 * Cache the digits of F(n), evicting the least recently used Fibs
+	 * until the cache fits. Fibs larger than the whole cache are not kept.
+	 *
+	 * @param n The zero-based index
+	 * @param digits The ASCII digits
+	 */
+	public synchronized void put( long n, byte[] digits )
+	{
+		long weight = weight( digits );
+		if ( weight > maxBytes )
+		{
+			return;
+		}
+
+		byte[] previous = entries.put( n, digits );
+		if ( previous != null )
+		{
+			retainedBytes -= weight( previous );
+		}
+		retainedBytes += weight;
+
+		Iterator<Map.Entry<Long, byte[]>> eldest = entries.entrySet().iterator();
+		while ( retainedBytes > maxBytes )
+		{
+			retainedBytes -= weight( eldest.next().getValue() );
+			eldest.remove();
+			evictions++;
+		}
+	}
+
+	/**
+	 * Write [count] Fibs starting at F(start) separated by spaces.
+	 * Hits are copied from the cache, and misses are generated
+	 * sequentially from the last miss and added to the cache.
+	 *
+	 * @param start The index of the first Fib to write
+	 * @param count The number of Fibonacci numbers to write
+	 * @param channel The output channel
+	 * @return The number of bytes written
+	 * @throws IOException Exception if the channel is closed or invalid
+	 */
+	public long write( long start, long count, WritableByteChannel channel ) throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.allocate( WRITE_BUFFER_SIZE );
+		InPlaceFibonacciGenerator generator = null;
+		long written = 0;
+
+		// Null unless metrics are enabled. Hits only cost write time.
+		Metrics.Request phases = Metrics.phases();
+		long mark = phases == null ? 0 : System.nanoTime();
+
+		for ( long n = start; n < start + count; n++ )
+		{
+			byte[] digits = getIfPresent( n );
+			if ( digits == null )
+			{
+				// Only jump when the generator isn't already on this Fib
+				if ( generator == null )
+				{
+					generator = new InPlaceFibonacciGenerator( n );
+				}
+				else if ( generator.position() != n )
+				{
+					generator.seek( n );
+				}
+				if ( phases != null )
+				{
+					mark = phases.compute( mark );
+				}
+
+				digits = new byte[generator.digitCount()];
+				generator.writeDigits( digits, 0 );
+				put( n, digits );
+				if ( phases != null )
+				{
+					mark = phases.format( mark );
+				}
+
+				generator.advance();
+				if ( phases != null )
+				{
+					mark = phases.compute( mark );
+				}
+			}
+
+			if ( n > start )
+			{
+				written += put( buffer, (byte) ' ', channel );
+			}
+			written += put( buffer, digits, channel );
+			if ( phases != null )
+			{
+				mark = phases.write( mark );
+			}
+		}
+
+		buffer.flip();
+		written += ChannelSequenceWriter.writeFully( buffer, channel );
+
+		if ( phases != null )
+		{
+			phases.write( mark );
+			phases.output( count, written );
+			Metrics.done( phases );
+		}
+		return written;
+	}
+
+	/**
+	 * Return the number of lookups that found a cached Fib
+	 *
+	 * @return The hit count
+	 */
+	public synchronized long hits()
+	{
+		return hits;
+	}
+
+	/**
+	 * Return the number of lookups that found nothing
+	 *
+	 * @return The miss count
+	 */
+	public synchronized long misses()
+	{
+		return misses;
+	}
+
+	/**
+	 * Return the number of Fibs evicted to stay under the size limit
+	 *
+	 * @return The eviction count
+	 */
+	public synchronized long evictions()
+	{
+		return evictions;
+	}
+
+	/**
+	 * Return the approximate heap bytes retained by the cached Fibs
+	 *
+	 * @return The retained bytes, at most the size limit
+	 */
+	public synchronized long retainedBytes()
+	{
+		return retainedBytes;
+	}
+
+	/**
+	 * Return the number of cached Fibs
+	 *
+	 * @return The entry count
+	 */
+	public synchronized int size()
+	{
+		return entries.size();
+	}
+
+	/**
+	 * Return the retained heap cost of cached digits
+	 */
+	private static long weight( byte[] digits )
+	{
+		return digits.length + ENTRY_OVERHEAD;
+	}
+
+	/**
+	 * Copy bytes into the buffer, writing it out whenever it fills
+	 */
+	private static long put( ByteBuffer buffer, byte[] bytes, WritableByteChannel channel ) throws IOException
+	{
+		long written = 0;
+		for ( int offset = 0; offset < bytes.length; )
+		{
+			if ( !buffer.hasRemaining() )
+			{
+				buffer.flip();
+				written += ChannelSequenceWriter.writeFully( buffer, channel );
+				buffer.clear();
+			}
+			int n = Math.min( bytes.length - offset, buffer.remaining() );
+			buffer.put( bytes, offset, n );
+			offset += n;
+		}
+		return written;
+	}
+
+	/**
+	 * Copy one byte into the buffer, writing it out first if it is full
+	 */
+	private static long put( ByteBuffer buffer, byte b, WritableByteChannel channel ) throws IOException
+	{
+		long written = 0;
+		if ( !buffer.hasRemaining() )
+		{
+			buffer.flip();
+			written = ChannelSequenceWriter.writeFully( buffer, channel );
+			buffer.clear();
+		}
+		buffer.put( b );
+		return written;
+	}
+}
@@ -23,6 +23,9 @@ public class ValidatePositive
 
 	final static String INVALID = "The number is invalid.";
 
+	// Lexers keep their parsed values between calls, so each thread reuses its own
+	private final static ThreadLocal<QueryLexer> lexer = ThreadLocal.withInitial( QueryLexer::new );
+
 	/**
 	 * If the number is an invalid positive integer representation, return a hint
 	 * as to why it fails, otherwise return null
@@ -32,48 +35,10 @@ public class ValidatePositive
 	 */
 	public static String validateWithHints( String number )
 	{
-		if ( ! isValidPositiveIntegerRepresentation( number ) )
-		{
-			// Empty cases
-			if ( number.isEmpty() )
-			{
-				return EMPTY;
-			}
-
-			// Hint things like 01, 0.12, etc.
-			if ( number.charAt( 0 ) == '0' )
-			{
-				return ZERO;
-			}
-
-			// Simple for-loop over the characters
-			// to find the offending character
-			for ( char chr : number.toCharArray() )
-			{
-				if ( chr == '.' )
-				{
-					return FRACTION;
-				}
-				if ( chr >= 128 )
-				{
-					return ASCII;
-				}
-				if ( chr == ' ' )
-				{
-					return WHITESPACE;
-				}
-				// ASCII '0' = 48, '9' = 57
-				if ( chr < 48 || chr > 57 )
-				{
-					return MIXED;
-				}
-			}
-
-			// Catch all
-			return INVALID;
-		}
-
-		return null;
+		// A single pass finds the same hint as scanning for the offending character.
+		// Numbers of any length are valid here, however large.
+		String hint = lexer.get().lexLength( number );
+		return hint == QueryLexer.TOO_LARGE ? null : hint;
 	}
 
 	/**
@@ -90,15 +55,23 @@ public class ValidatePositive
 			return false;
 		}
 
-		// Only allow digits 0-9
-		// ASCII '0' = 48, '9' = 57
-		if ( !number.chars().allMatch( chr -> chr >= 48 && chr <= 57 ) )
+		// Disallow the first digit to be a zero (hex?)
+		if ( number.charAt( 0 ) == '0' )
 		{
 			return false;
 		}
 
-		// Disallow the first digit to be a zero (hex?)
-		return number.charAt( 0 ) != '0';
+		// Only allow digits 0-9
+		// ASCII '0' = 48, '9' = 57
+		for ( int i = 0; i < number.length(); i++ )
+		{
+			char chr = number.charAt( i );
+			if ( chr < 48 || chr > 57 )
+			{
+				return false;
+			}
+		}
+		return true;
 	}
 
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AsyncChannelTest
+{
+	/**
+	 * Test that the output matches a synchronous write for buffers smaller
+	 * and larger than the ring's, so Fibs cross buffer boundaries
+	 */
+	@ParameterizedTest
+	@ValueSource( ints = { 1, 100, 1 << 16 } )
+	void write_matchesSynchronous( int writerBufferSize ) throws IOException
+	{
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		new ChannelSequenceWriter().write( 2_000, Channels.newChannel( expected ) );
+
+		ByteArrayOutputStream actual = new ByteArrayOutputStream();
+		AsyncChannel channel = new AsyncChannel( Channels.newChannel( actual ), 3, 4_096 );
+		long written = new ChannelSequenceWriter( writerBufferSize ).write( 2_000, channel );
+		channel.close();
+
+		assertEquals( expected.size(), written );
+		assertArrayEquals( expected.toByteArray(), actual.toByteArray() );
+		assertFalse( channel.isOpen() );
+		assertThrows( ClosedChannelException.class, () -> channel.write( ByteBuffer.allocate( 1 ) ) );
+	}
+
+	/**
+	 * Test that flush waits for everything written so far
+	 */
+	@Test
+	void flush() throws IOException
+	{
+		ByteArrayOutputStream actual = new ByteArrayOutputStream();
+		try ( AsyncChannel channel = new AsyncChannel( Channels.newChannel( actual ), 2, 16 ) )
+		{
+			channel.write( ByteBuffer.wrap( "0 1 1 2 3 5 8 13 21 34".getBytes() ) );
+			channel.flush();
+			assertEquals( "0 1 1 2 3 5 8 13 21 34", actual.toString() );
+
+			// The ring is whole again after a flush
+			channel.write( ByteBuffer.wrap( " 55".getBytes() ) );
+			channel.flush();
+			assertEquals( "0 1 1 2 3 5 8 13 21 34 55", actual.toString() );
+		}
+	}
+
+	/**
+	 * Test that a failure on the I/O thread reaches the writer
+	 */
+	@Test
+	void write_targetFails()
+	{
+		WritableByteChannel broken = new WritableByteChannel()
+		{
+			@Override
+			public int write( ByteBuffer src ) throws IOException
+			{
+				throw new IOException( "Disk full" );
+			}
+
+			@Override
+			public boolean isOpen()
+			{
+				return true;
+			}
+
+			@Override
+			public void close()
+			{
+			}
+		};
+
+		assertThrows( IOException.class, () -> {
+			try ( AsyncChannel channel = new AsyncChannel( broken, 2, 1_024 ) )
+			{
+				new ChannelSequenceWriter( 1 << 16 ).write( 5_000, channel );
+			}
+		} );
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BatchQueryProcessorTest
+{
+	/**
+	 * Answer the query lines and return the answer lines
+	 */
+	private static String[] process( long maxLength, String queries ) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		int count = new BatchQueryProcessor( maxLength ).process(
+			new BufferedReader( new StringReader( queries ) ), Channels.newChannel( bytes ) );
+
+		String[] answers = new String( bytes.toByteArray(), StandardCharsets.US_ASCII ).split( "\n", -1 );
+		assertEquals( count + 1, answers.length );
+		assertEquals( "", answers[count] );
+		return answers;
+	}
+
+	/**
+	 * The expected answer to a sequence length query
+	 */
+	private static String sequence( long length )
+	{
+		return LongStream.range( 0, length )
+			.mapToObj( n -> Fibonacci.term( n ).toString() )
+			.collect( Collectors.joining( " " ) );
+	}
+
+	/**
+	 * Test that unsorted and repeated queries are answered in the original order
+	 */
+	@Test
+	void process_originalOrder() throws IOException
+	{
+		long[] lengths = { 300, 1, 12, 300, 2, 1_000, 12, 5 };
+		StringBuilder queries = new StringBuilder();
+		for ( long length : lengths )
+		{
+			queries.append( length ).append( '\n' );
+		}
+
+		String[] answers = process( 10_000, queries.toString() );
+
+		for ( int i = 0; i < lengths.length; i++ )
+		{
+			assertEquals( sequence( lengths[i] ), answers[i] );
+		}
+	}
+
+	/**
+	 * Test that invalid queries are answered with a hint in place
+	 */
+	@Test
+	void process_hints() throws IOException
+	{
+		String[] answers = process( 100, "3\n0\n\n1.5\n101\n1234567890123456789012\n 4 \n" );
+
+		assertEquals( "0 1 1", answers[0] );
+		assertEquals( "ERR " + ValidatePositive.ZERO, answers[1] );
+		assertEquals( "ERR " + ValidatePositive.EMPTY, answers[2] );
+		assertEquals( "ERR " + ValidatePositive.FRACTION, answers[3] );
+		assertEquals( "ERR The max sequence length is 100.", answers[4] );
+		assertEquals( "ERR The max sequence length is 100.", answers[5] );
+		assertEquals( "0 1 1 2", answers[6] );
+	}
+
+	/**
+	 * Test batches with no valid queries at all
+	 */
+	@ParameterizedTest
+	@ValueSource( strings = { "", "x\n", "0\n-1\n" } )
+	void process_noValidQueries( String queries ) throws IOException
+	{
+		String[] answers = process( 100, queries );
+
+		for ( int i = 0; i < answers.length - 1; i++ )
+		{
+			assertEquals( "ERR ", answers[i].substring( 0, 4 ) );
+		}
+	}
+}
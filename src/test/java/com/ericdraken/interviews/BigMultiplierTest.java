@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BigMultiplierTest
+{
+	// Small pools, so the parallel split runs even on one core
+	private final static ForkJoinPool POOL = new ForkJoinPool( 4 );
+
+	private static BigMultiplier[] multipliers()
+	{
+		return new BigMultiplier[]{
+			new NttMultiplier( 0 ),
+			new NttMultiplier(),
+
+			// Products past 1,024 digits of 16 bits are split with Karatsuba before the transform
+			new NttMultiplier( 0, 1 << 10 ),
+			new ParallelMultiplier( new NttMultiplier( 0 ), POOL, 1_024 ),
+			new ParallelMultiplier( BigMultiplier.STANDARD, POOL, 64 ),
+			new ParallelMultiplier()
+		};
+	}
+
+	/**
+	 * Test products and squares of random numbers of many sizes and both signs
+	 */
+	@ParameterizedTest
+	@MethodSource( value = "multipliers" )
+	void multiply_random( BigMultiplier multiplier )
+	{
+		Random random = new Random( 42 );
+		int[] sizes = { 1, 15, 16, 17, 100, 1_000, 4_096, 20_000, 150_000 };
+		for ( int x : sizes )
+		{
+			for ( int y : sizes )
+			{
+				BigInteger a = new BigInteger( x, random );
+				BigInteger b = new BigInteger( y, random );
+				if ( random.nextBoolean() )
+				{
+					b = b.negate();
+				}
+				assertEquals( a.multiply( b ), multiplier.multiply( a, b ), x + " x " + y + " bits" );
+			}
+			BigInteger a = new BigInteger( x, random ).negate();
+			assertEquals( a.multiply( a ), multiplier.square( a ), x + " bits squared" );
+			assertEquals( a.multiply( a ), multiplier.multiply( a, a ), x + " bits times itself" );
+		}
+	}
+
+	/**
+	 * Test the largest digits, where every coefficient and carry is at its maximum, and zero
+	 */
+	@ParameterizedTest
+	@MethodSource( value = "multipliers" )
+	void multiply_edges( BigMultiplier multiplier )
+	{
+		for ( int bits : new int[]{ 16, 32, 65_536, 1 << 20 } )
+		{
+			BigInteger ones = BigInteger.ONE.shiftLeft( bits ).subtract( BigInteger.ONE );
+			assertEquals( ones.multiply( ones ), multiplier.square( ones ) );
+			assertEquals( ones.multiply( ones.shiftLeft( 7 ) ), multiplier.multiply( ones, ones.shiftLeft( 7 ) ) );
+			assertEquals( BigInteger.ZERO, multiplier.multiply( ones, BigInteger.ZERO ) );
+		}
+		assertEquals( BigInteger.ZERO, multiplier.square( BigInteger.ZERO ) );
+	}
+
+	/**
+	 * Test that fast doubling gives the same Fibs with every backend
+	 */
+	@ParameterizedTest
+	@MethodSource( value = "multipliers" )
+	void fibonacci_get( BigMultiplier multiplier )
+	{
+		for ( long n : new long[]{ 0, 1, 2, 93, 1_000, 65_537, 300_000 } )
+		{
+			BigInteger[] expected = Fibonacci.get( n, BigMultiplier.STANDARD );
+			BigInteger[] pair = Fibonacci.get( n, multiplier );
+			assertEquals( expected[0], pair[0], "F(" + n + ")" );
+			assertEquals( expected[1], pair[1], "F(" + n + " + 1)" );
+		}
+		assertEquals( new InPlaceFibonacciGenerator( 300_000 ).toBigInteger(), Fibonacci.term( 300_000 ) );
+	}
+
+	/**
+	 * Test the Karatsuba split and recombination
+	 */
+	@Test
+	void karatsuba()
+	{
+		BigInteger a = new BigInteger( 1_000, new Random( 7 ) );
+		BigInteger b = new BigInteger( 600, new Random( 8 ) );
+		int h = Karatsuba.half( a, b );
+		assertEquals( 512, h );
+		assertEquals( a, Karatsuba.high( a, h ).shiftLeft( h ).add( Karatsuba.low( a, h ) ) );
+
+		BigInteger a0 = Karatsuba.low( a, h );
+		BigInteger a1 = Karatsuba.high( a, h );
+		BigInteger b0 = Karatsuba.low( b, h );
+		BigInteger b1 = Karatsuba.high( b, h );
+		BigInteger product = Karatsuba.combine( a0.multiply( b0 ), a0.add( a1 ).multiply( b0.add( b1 ) ), a1.multiply( b1 ), h );
+		assertEquals( a.multiply( b ), product );
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinarySequenceTest
+{
+	/**
+	 * Write a range in the binary format with a small buffer
+	 */
+	private static byte[] write( long start, long count ) throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long written = new BinarySequenceWriter( 64 ).write( start, count, Channels.newChannel( out ) );
+		assertEquals( out.size(), written );
+		return out.toByteArray();
+	}
+
+	/**
+	 * Test that a sequence round-trips, including Fibs larger than both buffers
+	 */
+	@Test
+	void roundTrip_bigIntegers() throws IOException
+	{
+		byte[] bytes = write( 0, 3_000 );
+		try ( BinarySequenceReader reader = new BinarySequenceReader(
+			Channels.newChannel( new ByteArrayInputStream( bytes ) ) ) )
+		{
+			assertEquals( 0, reader.start() );
+			assertEquals( 3_000, reader.count() );
+
+			FibonacciIterator it = new FibonacciIterator();
+			for ( int i = 0; i < 3_000; i++ )
+			{
+				assertTrue( reader.hasNext() );
+				assertEquals( it.next(), reader.next() );
+			}
+			assertFalse( reader.hasNext() );
+		}
+	}
+
+	/**
+	 * Test the raw magnitude views of a range that doesn't start at zero
+	 */
+	@Test
+	void roundTrip_rawBytes() throws IOException
+	{
+		byte[] bytes = write( 70_000, 5 );
+		try ( BinarySequenceReader reader = new BinarySequenceReader(
+			Channels.newChannel( new ByteArrayInputStream( bytes ) ) ) )
+		{
+			assertEquals( 70_000, reader.start() );
+			for ( long n = 70_000; n < 70_005; n++ )
+			{
+				assertEquals( n, reader.position() );
+				ByteBuffer view = reader.nextBytes();
+				byte[] magnitude = new byte[view.remaining()];
+				view.get( magnitude );
+				assertEquals( Fibonacci.term( n ), new BigInteger( 1, magnitude ) );
+			}
+		}
+	}
+
+	/**
+	 * Test that the binary format is much smaller than the decimal text
+	 */
+	@Test
+	void size_smallerThanText() throws IOException
+	{
+		ByteArrayOutputStream text = new ByteArrayOutputStream();
+		new ChannelSequenceWriter().write( 10_000, Channels.newChannel( text ) );
+		assertTrue( write( 0, 10_000 ).length * 2 < text.size() );
+	}
+
+	/**
+	 * Test that a truncated file is reported rather than returning garbage
+	 */
+	@Test
+	void read_truncated() throws IOException
+	{
+		byte[] bytes = write( 0, 100 );
+		byte[] truncated = Arrays.copyOf( bytes, bytes.length - 3 );
+		try ( BinarySequenceReader reader = new BinarySequenceReader(
+			Channels.newChannel( new ByteArrayInputStream( truncated ) ) ) )
+		{
+			for ( int i = 0; i < 99; i++ )
+			{
+				reader.nextBytes();
+			}
+			assertThrows( EOFException.class, reader::nextBytes );
+		}
+	}
+
+	/**
+	 * Test that a length with bits past 31 is reported as malformed, not read as a negative size
+	 */
+	@Test
+	void read_lengthOverflow() throws IOException
+	{
+		// F(0) is a lone zero-length byte after the header
+		byte[] bytes = write( 0, 1 );
+		for ( byte top : new byte[]{ 0x08, 0x0F, 0x7F } )
+		{
+			byte[] corrupt = Arrays.copyOf( bytes, bytes.length + 4 );
+			int end = bytes.length - 1;
+			corrupt[end++] = (byte) 0xFF;
+			corrupt[end++] = (byte) 0xFF;
+			corrupt[end++] = (byte) 0xFF;
+			corrupt[end++] = (byte) 0xFF;
+			corrupt[end] = top;
+			try ( BinarySequenceReader reader = new BinarySequenceReader(
+				Channels.newChannel( new ByteArrayInputStream( corrupt ) ) ) )
+			{
+				IOException e = assertThrows( IOException.class, reader::nextBytes );
+				assertTrue( e.getMessage().startsWith( "Malformed length" ), e.getMessage() );
+			}
+		}
+	}
+}
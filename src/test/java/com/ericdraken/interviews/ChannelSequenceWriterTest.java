@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ChannelSequenceWriterTest
+{
+	/**
+	 * Return the expected text of [count] Fibs starting at F(start)
+	 */
+	private static String expected( long start, long count )
+	{
+		StringBuilder sb = new StringBuilder();
+		FibonacciIterator it = new FibonacciIterator( start );
+		for ( long i = 1; i <= count; i++ )
+		{
+			sb.append( it.next() );
+			if ( i < count )
+			{
+				sb.append( ' ' );
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Test the output with buffers smaller than, equal to and larger than a Fib
+	 *
+	 * @param bufferSize The direct buffer size
+	 */
+	@ParameterizedTest
+	@ValueSource( ints = { 1, 7, 64, 4_096, 1 << 20 } )
+	void write_bufferSizes( int bufferSize ) throws IOException
+	{
+		ByteArrayOutputStream actual = new ByteArrayOutputStream();
+		long written = new ChannelSequenceWriter( bufferSize ).write( 1_500, Channels.newChannel( actual ) );
+
+		assertEquals( expected( 0, 1_500 ), new String( actual.toByteArray(), StandardCharsets.US_ASCII ) );
+		assertEquals( actual.size(), written );
+	}
+
+	/**
+	 * Test that a range starting past F(0) is seeded directly
+	 */
+	@Test
+	void write_range() throws IOException
+	{
+		ByteArrayOutputStream actual = new ByteArrayOutputStream();
+		new ChannelSequenceWriter( 512 ).write( 5_000, 300, Channels.newChannel( actual ) );
+		assertEquals( expected( 5_000, 300 ), new String( actual.toByteArray(), StandardCharsets.US_ASCII ) );
+	}
+}
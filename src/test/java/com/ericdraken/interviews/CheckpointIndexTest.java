@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CheckpointIndexTest
+{
+	private Path file;
+
+	@BeforeEach
+	void createFile() throws IOException
+	{
+		// An empty file is initialized as a new index
+		file = Files.createTempFile( "fibs-", ".idx" );
+	}
+
+	@AfterEach
+	void deleteFile() throws IOException
+	{
+		Files.deleteIfExists( file );
+	}
+
+	/**
+	 * Test that seeking past the end extends the index and lands on the right Fib
+	 */
+	@Test
+	void seek_extendsIndex() throws IOException
+	{
+		try ( CheckpointIndex index = CheckpointIndex.open( file, 100 ) )
+		{
+			assertEquals( 1, index.count() );
+
+			FibonacciIterator it = new FibonacciIterator( index );
+			it.seek( 1_234 );
+			assertEquals( Fibonacci.term( 1_234 ), it.next() );
+
+			// Checkpoints at 0, 100, ..., 1200
+			assertEquals( 13, index.count() );
+
+			// Seeking backwards restarts from a checkpoint
+			it.seek( 550 );
+			assertEquals( Fibonacci.term( 550 ), it.next() );
+			assertEquals( Fibonacci.term( 551 ), it.next() );
+		}
+	}
+
+	/**
+	 * Test that seeking far past the end appends every missing checkpoint
+	 * without walking the gap, which would take minutes with additions
+	 */
+	@Test
+	void seek_jumpsPastEnd() throws IOException
+	{
+		try ( CheckpointIndex index = CheckpointIndex.open( file, 10_000 ) )
+		{
+			FibonacciIterator it = new FibonacciIterator( index );
+			it.seek( 1_000_005 );
+			assertEquals( 101, index.count() );
+			assertEquals( Fibonacci.term( 1_000_005 ), it.next() );
+
+			for ( int entry : new int[]{ 1, 37, 100 } )
+			{
+				assertArrayEquals( Fibonacci.get( entry * 10_000L ), index.read( entry ) );
+			}
+		}
+	}
+
+	/**
+	 * Test that checkpoints survive closing and reopening the index
+	 */
+	@Test
+	void reopen_keepsCheckpoints() throws IOException
+	{
+		try ( CheckpointIndex index = CheckpointIndex.open( file, 1_000 ) )
+		{
+			new FibonacciIterator( index ).seek( 20_000 );
+			assertEquals( 21, index.count() );
+		}
+
+		try ( CheckpointIndex index = CheckpointIndex.open( file, 1_000 ) )
+		{
+			assertEquals( 21, index.count() );
+			for ( long n : new long[]{ 0, 999, 1_000, 15_500, 20_000, 20_001 } )
+			{
+				FibonacciIterator it = new FibonacciIterator( index );
+				it.seek( n );
+				assertEquals( Fibonacci.term( n ), it.next() );
+			}
+		}
+	}
+
+	/**
+	 * Test that an index can't be reused with a different interval
+	 */
+	@Test
+	void open_intervalMismatch() throws IOException
+	{
+		CheckpointIndex.open( file, 100 ).close();
+		assertThrows( IOException.class, () -> CheckpointIndex.open( file, 200 ) );
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressingChannelTest
+{
+	/**
+	 * Test that a compressed sequence reads back Fib for Fib and is smaller than the text
+	 */
+	@Test
+	void roundTrip() throws IOException
+	{
+		ByteArrayOutputStream text = new ByteArrayOutputStream();
+		new ChannelSequenceWriter().write( 5_000, Channels.newChannel( text ) );
+
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try ( CompressingChannel channel = new CompressingChannel( Channels.newChannel( compressed ) ) )
+		{
+			// A small buffer makes many chunks cross the queue
+			new ChannelSequenceWriter( 1_000 ).write( 5_000, channel );
+		}
+		assertTrue( compressed.size() < text.size() / 2 );
+
+		try ( CompressedSequenceReader reader = new CompressedSequenceReader(
+			new ByteArrayInputStream( compressed.toByteArray() ) ) )
+		{
+			FibonacciIterator it = new FibonacciIterator();
+			for ( int i = 0; i < 5_000; i++ )
+			{
+				assertTrue( reader.hasNext() );
+				if ( i % 2 == 0 )
+				{
+					assertEquals( it.next(), reader.next() );
+				}
+				else
+				{
+					assertEquals( it.next().toString(), StandardCharsets.US_ASCII.decode( reader.nextDigits() ).toString() );
+				}
+			}
+			assertFalse( reader.hasNext() );
+		}
+	}
+
+	/**
+	 * Test that a failure on the compressor thread reaches the writer
+	 */
+	@Test
+	void write_targetFails()
+	{
+		WritableByteChannel broken = new WritableByteChannel()
+		{
+			@Override
+			public int write( ByteBuffer src ) throws IOException
+			{
+				throw new IOException( "Disk full" );
+			}
+
+			@Override
+			public boolean isOpen()
+			{
+				return true;
+			}
+
+			@Override
+			public void close()
+			{
+			}
+		};
+
+		assertThrows( IOException.class, () -> {
+			try ( CompressingChannel channel = new CompressingChannel( broken ) )
+			{
+				new ChannelSequenceWriter( 1 << 16 ).write( 20_000, channel );
+			}
+		} );
+	}
+}
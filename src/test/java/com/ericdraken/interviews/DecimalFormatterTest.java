@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DecimalFormatterTest
+{
+	private static BigInteger[] edgeCases()
+	{
+		// Values around the cached powers of ten are where padding goes wrong
+		BigInteger e18 = BigInteger.TEN.pow( 18 );
+		BigInteger e36 = BigInteger.TEN.pow( 36 );
+		BigInteger e72 = BigInteger.TEN.pow( 72 );
+		return new BigInteger[]{
+			BigInteger.ZERO,
+			BigInteger.ONE,
+			BigInteger.valueOf( Long.MAX_VALUE ),
+			BigInteger.valueOf( Long.MIN_VALUE ),
+			e18, e18.subtract( BigInteger.ONE ), e18.add( BigInteger.ONE ),
+			e36, e36.subtract( BigInteger.ONE ), e36.add( BigInteger.ONE ),
+			e72, e72.subtract( BigInteger.ONE ), e72.add( BigInteger.ONE ),
+			e72.multiply( e18 ).add( BigInteger.valueOf( 7 ) ),
+			BigInteger.ONE.shiftLeft( 4_000 ).negate()
+		};
+	}
+
+	/**
+	 * Test that edge cases around the powers of ten match toString()
+	 *
+	 * @param value The number to format
+	 */
+	@ParameterizedTest
+	@MethodSource( value = "edgeCases" )
+	void format_edgeCases( BigInteger value )
+	{
+		assertEquals( value.toString(), new String( new DecimalFormatter().toBytes( value ), StandardCharsets.US_ASCII ) );
+	}
+
+	/**
+	 * Test that large Fibs match toString() when formatted at an offset
+	 *
+	 * @param n The index of the Fib to format
+	 */
+	@ParameterizedTest
+	@ValueSource( ints = { 0, 1, 92, 93, 1_000, 10_000, 70_332, 250_000 } )
+	void format_fibs( int n )
+	{
+		BigInteger fib = Fibonacci.term( n );
+		byte[] buffer = new byte[DecimalFormatter.maxLength( fib ) + 3];
+		int end = new DecimalFormatter().format( fib, buffer, 3 );
+		assertEquals( fib.toString(), new String( buffer, 3, end - 3, StandardCharsets.US_ASCII ) );
+	}
+
+	/**
+	 * Test that one formatter reused across many random numbers stays correct
+	 */
+	@Test
+	void format_reusedCache()
+	{
+		Random random = new Random( 42 );
+		DecimalFormatter formatter = new DecimalFormatter();
+		for ( int i = 0; i < 2_000; i++ )
+		{
+			BigInteger value = new BigInteger( random.nextInt( 8_000 ), random );
+			assertEquals( value.toString(), new String( formatter.toBytes( value ), StandardCharsets.US_ASCII ) );
+		}
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigInteger;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FibonacciModTest
+{
+	private static Long[][] knownPeriods()
+	{
+		// REF: https://oeis.org/A001175
+		return new Long[][]{
+			{ 1L, 1L }, { 2L, 3L }, { 3L, 8L }, { 5L, 20L }, { 7L, 16L }, { 10L, 60L },
+			{ 11L, 10L }, { 100L, 300L }, { 1_000L, 1_500L }, { 1_000_000_007L, 2_000_000_016L },
+			{ 1_000_000_000_000L, 1_500_000_000_000L }
+		};
+	}
+
+	/**
+	 * Test Pisano periods against known values
+	 */
+	@ParameterizedTest
+	@MethodSource( value = "knownPeriods" )
+	void pisano( long m, long period )
+	{
+		assertEquals( period, FibonacciMod.pisano( m ) );
+	}
+
+	/**
+	 * Test residues against BigInteger for small and large moduli,
+	 * with indices below and above the period
+	 */
+	@ParameterizedTest
+	@ValueSource( longs = { 1, 2, 10, 97, 1_000_000_007L, 4_294_967_296L, 4_294_967_311L, 999_999_999_989L,
+		1L << 62, 3L << 40, 1_000_000_000_000_000_000L, Long.MAX_VALUE / 6, Long.MAX_VALUE - 1, Long.MAX_VALUE } )
+	void mod_matchesBigInteger( long m )
+	{
+		BigInteger modulus = BigInteger.valueOf( m );
+		for ( long n : new long[]{ 0, 1, 2, 91, 92, 93, 1_000, 12_345 } )
+		{
+			assertEquals( Fibonacci.term( n ).mod( modulus ).longValue(), FibonacciMod.mod( n, m ), "F(" + n + ") mod " + m );
+		}
+	}
+
+	/**
+	 * Test huge indices against fast doubling without the period
+	 */
+	@Test
+	void mod_hugeIndex()
+	{
+		long n = Long.MAX_VALUE;
+		for ( long m : new long[]{ 10, 1_000_000_007L, 999_999_999_989L } )
+		{
+			assertEquals( FibonacciMod.pair( n, m )[0], FibonacciMod.mod( n, m ) );
+			assertEquals( FibonacciMod.mod( n % FibonacciMod.pisano( m ), m ), FibonacciMod.mod( n, m ) );
+		}
+	}
+
+	/**
+	 * Test the last digits of short and long Fibs
+	 */
+	@Test
+	void lastDigits()
+	{
+		assertEquals( "0", FibonacciMod.lastDigits( 0, 5 ) );
+		assertEquals( "55", FibonacciMod.lastDigits( 10, 5 ) );
+		assertEquals( "7778742049", FibonacciMod.lastDigits( 49, 10 ) );
+		assertEquals( "42049", FibonacciMod.lastDigits( 49, 5 ) );
+
+		String f1000 = Fibonacci.term( 1_000 ).toString();
+		assertEquals( f1000.substring( f1000.length() - 18 ), FibonacciMod.lastDigits( 1_000, 18 ) );
+
+		// F(120) ends in a zero digit after F(60), so leading zeros are kept
+		String f120 = Fibonacci.term( 120 ).toString();
+		assertEquals( f120.substring( f120.length() - 3 ), FibonacciMod.lastDigits( 120, 3 ) );
+
+		assertEquals( 6, FibonacciMod.lastDigits( Long.MAX_VALUE, 6 ).length() );
+	}
+
+	/**
+	 * Test the 128-bit product against BigInteger
+	 */
+	@Test
+	void multiplyHighUnsigned()
+	{
+		long[] values = { 0, 1, 3, 0xFFFFFFFFL, 1L << 32, Long.MAX_VALUE, Long.MIN_VALUE, -1, 0x123456789ABCDEFL };
+		BigInteger mask = BigInteger.ONE.shiftLeft( 64 ).subtract( BigInteger.ONE );
+		for ( long x : values )
+		{
+			for ( long y : values )
+			{
+				BigInteger product = new BigInteger( Long.toUnsignedString( x ) ).multiply( new BigInteger( Long.toUnsignedString( y ) ) );
+				assertEquals( product.shiftRight( 64 ).and( mask ).longValue(), FibonacciMod.multiplyHighUnsigned( x, y ) );
+			}
+		}
+	}
+
+	/**
+	 * Test the primality test and factorization on hard cases
+	 */
+	@Test
+	void factorize()
+	{
+		assertTrue( FibonacciMod.isPrime( 2 ) );
+		assertTrue( FibonacciMod.isPrime( 9_223_372_036_854_775_783L ) );
+		assertFalse( FibonacciMod.isPrime( 3_215_031_751L ) );	// Strong pseudoprime to bases 2, 3, 5 and 7
+		assertFalse( FibonacciMod.isPrime( 1 ) );
+
+		TreeMap<Long, Integer> factors = FibonacciMod.factorize( 999_999_999_989L * 3 * 3 );
+		assertEquals( 2, (int) factors.get( 3L ) );
+		assertEquals( 1, (int) factors.get( 999_999_999_989L ) );
+
+		// Two large primes need Pollard's rho
+		factors = FibonacciMod.factorize( 1_000_000_007L * 998_244_353L );
+		assertEquals( 2, factors.size() );
+		assertTrue( factors.containsKey( 998_244_353L ) );
+	}
+
+	/**
+	 * Test that invalid arguments are rejected
+	 */
+	@Test
+	void mod_invalid()
+	{
+		assertThrows( IllegalArgumentException.class, () -> FibonacciMod.mod( -1, 10 ) );
+		assertThrows( IllegalArgumentException.class, () -> FibonacciMod.mod( 1, 0 ) );
+		assertThrows( IllegalArgumentException.class, () -> FibonacciMod.lastDigits( 1, 19 ) );
+		assertThrows( IllegalArgumentException.class, () -> FibonacciMod.pisano( Long.MAX_VALUE ) );
+	}
+}
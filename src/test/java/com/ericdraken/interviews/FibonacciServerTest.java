@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FibonacciServerTest
+{
+	private FibonacciServer server;
+
+	private TermCache cache;
+
+	@BeforeEach
+	void start() throws IOException
+	{
+		cache = new TermCache();
+		server = new FibonacciServer( 0, cache, 10_000 );
+	}
+
+	@AfterEach
+	void stop() throws IOException
+	{
+		server.close();
+	}
+
+	/**
+	 * Send request lines on one connection and return the response lines
+	 */
+	private String[] query( String... requests ) throws IOException
+	{
+		try (
+			Socket socket = new Socket( InetAddress.getLoopbackAddress(), server.port() );
+			BufferedReader in = new BufferedReader(
+				new InputStreamReader( socket.getInputStream(), StandardCharsets.US_ASCII ) )
+		)
+		{
+			OutputStream out = socket.getOutputStream();
+			out.write( ( String.join( "\n", requests ) + "\nquit\n" ).getBytes( StandardCharsets.US_ASCII ) );
+			out.flush();
+
+			String[] responses = new String[requests.length];
+			for ( int i = 0; i < requests.length; i++ )
+			{
+				responses[i] = in.readLine();
+			}
+			assertNull( in.readLine() );
+			return responses;
+		}
+	}
+
+	/**
+	 * Test term and range requests, pipelined on one connection
+	 */
+	@Test
+	void query_termsAndRanges() throws IOException
+	{
+		String[] responses = query( "term 10", "range 0..9", "term 1000", "range 4000..4002" );
+
+		assertEquals( "55", responses[0] );
+		assertEquals( "0 1 1 2 3 5 8 13 21 34", responses[1] );
+		assertEquals( Fibonacci.term( 1_000 ).toString(), responses[2] );
+		assertEquals( Fibonacci.term( 4_000 ) + " " + Fibonacci.term( 4_001 ) + " " + Fibonacci.term( 4_002 ), responses[3] );
+	}
+
+	/**
+	 * Test that invalid requests are answered with hints and don't drop the connection
+	 */
+	@Test
+	void query_errors() throws IOException
+	{
+		String[] responses = query( "term abc", "range 5..1", "range 0..20000", "fib 3", "term 3" );
+
+		for ( int i = 0; i < 4; i++ )
+		{
+			assertTrue( responses[i].startsWith( "ERR " ), responses[i] );
+		}
+		assertEquals( "2", responses[4] );
+	}
+
+	/**
+	 * Test that indices past the maximum are refused before any work is done
+	 */
+	@Test
+	void query_maxIndex() throws IOException
+	{
+		String[] responses = query(
+			"term 999999999999999999", "range 99999999999..99999999999", "term " + FibonacciServer.DEFAULT_MAX_INDEX,
+			"range 999999..1000001", "term 3" );
+
+		String hint = "ERR The max index is " + FibonacciServer.DEFAULT_MAX_INDEX + ".";
+		assertEquals( hint, responses[0] );
+		assertEquals( hint, responses[1] );
+		assertEquals( Fibonacci.term( FibonacciServer.DEFAULT_MAX_INDEX ).toString(), responses[2] );
+		assertEquals( hint, responses[3] );
+		assertEquals( "2", responses[4] );
+	}
+
+	/**
+	 * Test that concurrent clients share the warm cache
+	 */
+	@Test
+	void query_concurrentClients() throws Exception
+	{
+		ExecutorService clients = Executors.newFixedThreadPool( 4 );
+		try
+		{
+			Future<?>[] futures = new Future<?>[8];
+			for ( int i = 0; i < futures.length; i++ )
+			{
+				futures[i] = clients.submit( () -> {
+					assertEquals( Fibonacci.term( 500 ).toString(), query( "term 500" )[0] );
+					return null;
+				} );
+			}
+			for ( Future<?> future : futures )
+			{
+				future.get();
+			}
+		}
+		finally
+		{
+			clients.shutdown();
+		}
+		assertTrue( cache.hits() > 0 );
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FibonacciSpliteratorTest
+{
+	private static Long[][] ranges()
+	{
+		return new Long[][]{ { 0L, 0L }, { 0L, 10L }, { 7L, 8L }, { 0L, 5_000L }, { 12_345L, 17_000L } };
+	}
+
+	private static Long[][] invalidRanges()
+	{
+		return new Long[][]{ { -1L, 5L }, { 5L, 4L } };
+	}
+
+	/**
+	 * Test that sequential and parallel streams return the range in order
+	 */
+	@ParameterizedTest
+	@MethodSource( value = "ranges" )
+	void stream_inOrder( long from, long to )
+	{
+		List<BigInteger> expected = LongStream.range( from, to )
+			.mapToObj( Fibonacci::term )
+			.collect( Collectors.toList() );
+
+		assertEquals( expected, Fibonacci.stream( from, to ).collect( Collectors.toList() ) );
+		assertEquals( expected, Fibonacci.stream( from, to ).parallel().collect( Collectors.toList() ) );
+		assertEquals( to - from, Fibonacci.stream( from, to ).parallel().count() );
+	}
+
+	/**
+	 * Test that splitting halves the range and both halves start at the right Fib
+	 */
+	@Test
+	void trySplit()
+	{
+		FibonacciSpliterator suffix = new FibonacciSpliterator( 100, 10_100 );
+
+		// Advance first, so the prefix starts from a computed pair
+		suffix.tryAdvance( fib -> assertEquals( Fibonacci.term( 100 ), fib ) );
+
+		Spliterator<BigInteger> prefix = suffix.trySplit();
+		assertEquals( 4_999, prefix.estimateSize() );
+		assertEquals( 5_000, suffix.estimateSize() );
+		assertTrue( prefix.hasCharacteristics( Spliterator.SUBSIZED | Spliterator.ORDERED ) );
+
+		prefix.tryAdvance( fib -> assertEquals( Fibonacci.term( 101 ), fib ) );
+		suffix.tryAdvance( fib -> assertEquals( Fibonacci.term( 5_100 ), fib ) );
+
+		// Small ranges aren't worth seeding twice
+		assertNull( new FibonacciSpliterator( 0, 1_999 ).trySplit() );
+	}
+
+	/**
+	 * Test that invalid ranges are rejected
+	 */
+	@ParameterizedTest
+	@MethodSource( value = "invalidRanges" )
+	void stream_invalid( long from, long to )
+	{
+		assertThrows( IllegalArgumentException.class, () -> Fibonacci.stream( from, to ) );
+	}
+}
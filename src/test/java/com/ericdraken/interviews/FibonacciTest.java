@@ -7,10 +7,15 @@ package com.ericdraken.interviews;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 
+import java.io.IOException;
 import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class FibonacciTest
@@ -63,6 +68,87 @@ class FibonacciTest
 		assertEquals( new BigInteger( nthFib ), lastFib );
 	}
 
+	/**
+	 * Test that fast doubling returns the same nth Fibonacci number and its successor
+	 *
+	 * @param length The length of the desired sequence
+	 * @param nthFib The nth Fib in the sequence
+	 */
+	@ParameterizedTest
+	@MethodSource( value = "nthFibs" )
+	void fibonacci_get( String length, String nthFib )
+	{
+		int numFibs = Integer.valueOf( length, 10 );
+
+		BigInteger[] pair = Fibonacci.get( numFibs - 1 );
+		BigInteger[] next = Fibonacci.get( numFibs );
+
+		assertEquals( new BigInteger( nthFib ), pair[0] );
+		assertEquals( next[0], pair[1] );
+	}
+
+	/**
+	 * Test that seeking and skipping land on the same Fib as walking the sequence
+	 *
+	 * @param length The length of the desired sequence
+	 * @param nthFib The nth Fib in the sequence
+	 */
+	@ParameterizedTest
+	@MethodSource( value = "nthFibs" )
+	void fibonacciIterator_seekAndSkip( String length, String nthFib )
+	{
+		int numFibs = Integer.valueOf( length, 10 );
+
+		FibonacciIterator seeker = new FibonacciIterator();
+		seeker.seek( numFibs - 1 );
+		assertEquals( new BigInteger( nthFib ), seeker.next() );
+		assertEquals( numFibs, seeker.position() );
+
+		FibonacciIterator skipper = new FibonacciIterator();
+		skipper.skip( numFibs - 1 );
+		assertEquals( new BigInteger( nthFib ), skipper.next() );
+
+		// The sequence continues normally after a jump
+		assertEquals( Fibonacci.term( numFibs ), seeker.next() );
+	}
+
+	/**
+	 * Test that seeking past the end of an index appends checkpoints at any interval,
+	 * including intervals whose F(interval) is tiny or zero
+	 *
+	 * @param interval The number of Fibs between checkpoints
+	 */
+	@ParameterizedTest
+	@ValueSource( longs = { 1, 2, 10, 1_000, 5_000 } )
+	void fibonacciIterator_seekPastIndex( long interval ) throws IOException
+	{
+		Path file = Files.createTempFile( "fibs-", ".idx" );
+		try ( CheckpointIndex index = CheckpointIndex.open( file, interval ) )
+		{
+			FibonacciIterator it = new FibonacciIterator( index );
+			for ( long n : new long[]{ 503, 10_001 } )
+			{
+				it.seek( n );
+				assertEquals( n / interval + 1, index.count() );
+				assertEquals( Fibonacci.term( n ), it.next() );
+			}
+		}
+		finally
+		{
+			Files.delete( file );
+		}
+	}
+
+	/**
+	 * Test that negative indices are rejected
+	 */
+	@Test
+	void fibonacci_negative()
+	{
+		assertThrows( IllegalArgumentException.class, () -> Fibonacci.get( -1 ) );
+		assertThrows( IllegalArgumentException.class, () -> new FibonacciIterator().skip( -1 ) );
+	}
+
 	/**
 	 * Test that a very large Fibonacci sequence takes under a second
 	 * and doesn't cause an OOM exception
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class InPlaceFibonacciGeneratorTest
+{
+	/**
+	 * Test that the in-place sums match the BigInteger sequence digit for digit
+	 */
+	@Test
+	void advance_matchesIterator()
+	{
+		FibonacciIterator it = new FibonacciIterator();
+		InPlaceFibonacciGenerator generator = new InPlaceFibonacciGenerator();
+		byte[] buffer = new byte[1_000];
+		for ( int i = 0; i < 3_000; i++ )
+		{
+			String expected = it.next().toString();
+			assertEquals( i, generator.position() );
+			assertEquals( expected.length(), generator.digitCount() );
+
+			int end = generator.writeDigits( buffer, 0 );
+			assertEquals( expected, new String( buffer, 0, end, StandardCharsets.US_ASCII ) );
+			generator.advance();
+		}
+	}
+
+	/**
+	 * Test that a directly seeded generator continues the sequence correctly
+	 *
+	 * @param start The index to seed at
+	 */
+	@ParameterizedTest
+	@ValueSource( longs = { 0, 1, 2, 45, 92, 93, 10_000 } )
+	void seek_continuesSequence( long start )
+	{
+		InPlaceFibonacciGenerator generator = new InPlaceFibonacciGenerator( start );
+		for ( long n = start; n < start + 50; n++ )
+		{
+			assertEquals( Fibonacci.term( n ), generator.toBigInteger() );
+			generator.advance();
+		}
+	}
+
+	/**
+	 * Test that the digit hint is the length of the last Fib to be written
+	 *
+	 * @param start The index to seed at
+	 */
+	@ParameterizedTest
+	@ValueSource( longs = { 0, 1, 2, 45, 92, 93, 10_000 } )
+	void maxDigits_lastTerm( long start )
+	{
+		InPlaceFibonacciGenerator generator = new InPlaceFibonacciGenerator( start );
+		assertEquals( generator.digitCount(), generator.maxDigits( 1 ) );
+		for ( long count : new long[]{ 2, 10, 1_000 } )
+		{
+			assertEquals( Fibonacci.term( start + count - 1 ).toString().length(), generator.maxDigits( count ) );
+		}
+	}
+
+	/**
+	 * Test the read-only limb view
+	 */
+	@Test
+	void limbs_view()
+	{
+		// F(50) = 12586269025 = 12 * 10^9 + 586269025
+		InPlaceFibonacciGenerator generator = new InPlaceFibonacciGenerator( 50 );
+		assertEquals( 2, generator.limbCount() );
+		assertEquals( 586_269_025, generator.limb( 0 ) );
+		assertEquals( 12, generator.limb( 1 ) );
+		assertThrows( IndexOutOfBoundsException.class, () -> generator.limb( 2 ) );
+
+		BigInteger expected = Fibonacci.term( 50 );
+		assertEquals( expected, generator.toBigInteger() );
+	}
+}
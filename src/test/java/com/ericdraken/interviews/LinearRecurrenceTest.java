@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LinearRecurrenceTest
+{
+	// A weighted recurrence with a negative coefficient, a(n) = 3a(n-1) - 2a(n-2) + 5a(n-4)
+	private final static LinearRecurrence WEIGHTED = new LinearRecurrence( new long[]{ 3, -2, 0, 5 }, new long[]{ 1, -1, 4, 0 } );
+
+	private static LinearRecurrence[] recurrences()
+	{
+		return new LinearRecurrence[]{
+			LinearRecurrence.FIBONACCI, LinearRecurrence.LUCAS, LinearRecurrence.TRIBONACCI, LinearRecurrence.PELL, WEIGHTED,
+			new LinearRecurrence( new long[]{ 7 }, new long[]{ 3 } )
+		};
+	}
+
+	/**
+	 * Return the first [count] terms by walking the recurrence
+	 */
+	static List<BigInteger> naive( LinearRecurrence recurrence, int count )
+	{
+		int k = recurrence.order();
+		List<BigInteger> terms = new ArrayList<>( Arrays.asList( recurrence.window( 0 ) ) );
+		BigInteger[] window = recurrence.window( 0 );
+		for ( int n = k, head = 0; n < count; n++, head = ( head + 1 ) % k )
+		{
+			window[head] = recurrence.next( window, head );
+			terms.add( window[head] );
+		}
+		return terms.subList( 0, count );
+	}
+
+	/**
+	 * Test that random access by Kitamasa's method matches walking the sequence
+	 */
+	@ParameterizedTest
+	@MethodSource( value = "recurrences" )
+	void term_matchesWalk( LinearRecurrence recurrence )
+	{
+		List<BigInteger> expected = naive( recurrence, 300 );
+		for ( int n = 0; n < expected.size(); n++ )
+		{
+			assertEquals( expected.get( n ), recurrence.term( n ), "n = " + n );
+		}
+		assertEquals( expected.subList( 250, 250 + recurrence.order() ), Arrays.asList( recurrence.window( 250 ) ) );
+	}
+
+	/**
+	 * Test well-known terms of the presets
+	 */
+	@Test
+	void term_presets()
+	{
+		assertEquals( Fibonacci.term( 12_345 ), LinearRecurrence.FIBONACCI.term( 12_345 ) );
+		assertEquals( new BigInteger( "15127" ), LinearRecurrence.LUCAS.term( 20 ) );
+		assertEquals( new BigInteger( "19513" ), LinearRecurrence.TRIBONACCI.term( 19 ) );
+		assertEquals( new BigInteger( "5741" ), LinearRecurrence.PELL.term( 11 ) );
+
+		// L(n) = F(n-1) + F(n+1)
+		assertEquals( Fibonacci.term( 9_999 ).add( Fibonacci.term( 10_001 ) ), LinearRecurrence.LUCAS.term( 10_000 ) );
+	}
+
+	/**
+	 * Test that sequential and parallel streams and the iterator agree with the walk
+	 */
+	@ParameterizedTest
+	@MethodSource( value = "recurrences" )
+	void stream_inOrder( LinearRecurrence recurrence )
+	{
+		List<BigInteger> expected = naive( recurrence, 5_000 ).subList( 17, 5_000 );
+
+		assertEquals( expected, recurrence.stream( 17, 5_000 ).collect( Collectors.toList() ) );
+		assertEquals( expected, recurrence.stream( 17, 5_000 ).parallel().collect( Collectors.toList() ) );
+
+		Iterator<BigInteger> iterator = recurrence.iterator( 17 );
+		for ( BigInteger term : expected.subList( 0, 100 ) )
+		{
+			assertEquals( term, iterator.next() );
+		}
+	}
+
+	/**
+	 * Test that negative indices and backwards ranges are rejected
+	 */
+	@ParameterizedTest
+	@ValueSource( longs = { -1, Long.MIN_VALUE } )
+	void term_negative( long n )
+	{
+		assertThrows( IllegalArgumentException.class, () -> LinearRecurrence.FIBONACCI.term( n ) );
+		assertThrows( IllegalArgumentException.class, () -> LinearRecurrence.FIBONACCI.stream( n, 0 ) );
+		assertThrows( IllegalArgumentException.class, () -> LinearRecurrence.FIBONACCI.stream( 5, 4 ) );
+	}
+
+	/**
+	 * Test that the coefficients and seeds must match up
+	 */
+	@Test
+	void constructor_invalid()
+	{
+		assertThrows( IllegalArgumentException.class, () -> new LinearRecurrence( new long[0], new long[0] ) );
+		assertThrows( IllegalArgumentException.class, () -> new LinearRecurrence( new long[]{ 1, 1 }, new long[]{ 0 } ) );
+		assertArrayEquals( new BigInteger[]{ BigInteger.valueOf( 2 ), BigInteger.ONE }, LinearRecurrence.LUCAS.window( 0 ) );
+	}
+}
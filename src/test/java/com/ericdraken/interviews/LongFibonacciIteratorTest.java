@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.NoSuchElementException;
+
+import static com.ericdraken.interviews.LongFibonacciIterator.MAX_INDEX;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongFibonacciIteratorTest
+{
+	/**
+	 * Test that every long Fib matches the BigInteger sequence and that F(93) is refused
+	 */
+	@Test
+	void longIterator_stopsBeforeOverflow()
+	{
+		FibonacciIterator expected = new FibonacciIterator();
+		LongFibonacciIterator it = new LongFibonacciIterator();
+		for ( int i = 0; i <= MAX_INDEX; i++ )
+		{
+			assertTrue( it.hasNext() );
+			assertEquals( expected.next().longValueExact(), it.nextLong() );
+		}
+
+		assertFalse( it.hasNext() );
+		assertThrows( NoSuchElementException.class, it::nextLong );
+	}
+
+	/**
+	 * Test that the hybrid iterator is seamless across the promotion to BigInteger
+	 */
+	@Test
+	void hybridIterator_promotesAtOverflow()
+	{
+		FibonacciIterator expected = new FibonacciIterator();
+		HybridFibonacciIterator it = new HybridFibonacciIterator();
+		for ( int i = 0; i <= MAX_INDEX; i++ )
+		{
+			assertTrue( it.hasNextLong() );
+			assertEquals( expected.next().longValueExact(), it.nextLong() );
+		}
+
+		assertFalse( it.hasNextLong() );
+		assertThrows( ArithmeticException.class, it::nextLong );
+
+		for ( int i = MAX_INDEX + 1; i <= 1_000; i++ )
+		{
+			assertEquals( expected.next(), it.next() );
+		}
+		assertEquals( 1_001, it.position() );
+	}
+
+	/**
+	 * Test that mixing next() and nextLong() in the long range stays in step
+	 */
+	@Test
+	void hybridIterator_mixedCalls()
+	{
+		HybridFibonacciIterator it = new HybridFibonacciIterator();
+		for ( int i = 0; i <= 200; i++ )
+		{
+			BigInteger expected = Fibonacci.term( i );
+			if ( i % 2 == 0 && it.hasNextLong() )
+			{
+				assertEquals( expected.longValueExact(), it.nextLong() );
+			}
+			else
+			{
+				assertEquals( expected, it.next() );
+			}
+		}
+	}
+}
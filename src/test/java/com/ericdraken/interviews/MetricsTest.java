@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsTest
+{
+	private final WritableByteChannel sink = Channels.newChannel( new ByteArrayOutputStream() );
+
+	@BeforeEach
+	void enable()
+	{
+		Metrics.reset();
+		Metrics.setEnabled( true );
+	}
+
+	@AfterEach
+	void disable()
+	{
+		Metrics.setEnabled( false );
+		Metrics.watch( null );
+		Metrics.reset();
+	}
+
+	/**
+	 * Test that writer calls inside a request are recorded as one request
+	 */
+	@Test
+	void request_countsOutput() throws IOException
+	{
+		TermCache cache = new TermCache();
+		Metrics.watch( cache );
+
+		Metrics.Request request = Metrics.start();
+		long written = new ChannelSequenceWriter( 1_000 ).write( 2_000, sink );
+		written += cache.write( 0, 10, sink );
+		written += cache.write( 0, 10, sink );
+		Metrics.finish( request );
+
+		assertEquals( 1, Metrics.REQUESTS.count() );
+		assertEquals( 1, Metrics.COMPUTE.count() );
+		assertTrue( Metrics.COMPUTE.sum() > 0 );
+		assertTrue( Metrics.FORMAT.sum() > 0 );
+		assertTrue( Metrics.WRITE.sum() > 0 );
+
+		String dump = Metrics.dump();
+		assertTrue( dump.contains( String.format( "terms           %,d ", 2_020 ) ), dump );
+		assertTrue( dump.contains( String.format( "bytes written   %,d%n", written ) ), dump );
+		assertTrue( dump.contains( "cache hit rate  50.0%" ), dump );
+	}
+
+	/**
+	 * Test that a writer call outside a request is recorded as its own request
+	 */
+	@Test
+	void writer_withoutRequest() throws IOException
+	{
+		new ChannelSequenceWriter().write( 100, sink );
+		new ParallelSequenceWriter().write( 3_000, sink );
+
+		assertEquals( 2, Metrics.REQUESTS.count() );
+		assertTrue( Metrics.dump().contains( String.format( "terms           %,d ", 3_100 ) ) );
+	}
+
+	/**
+	 * Test that nothing is recorded while disabled
+	 */
+	@Test
+	void disabled() throws IOException
+	{
+		Metrics.setEnabled( false );
+		assertNull( Metrics.start() );
+		assertNull( Metrics.phases() );
+
+		new ChannelSequenceWriter().write( 100, sink );
+		assertEquals( 0, Metrics.REQUESTS.count() );
+	}
+
+	/**
+	 * Test histogram percentiles, which are bucket upper bounds capped at the max
+	 */
+	@Test
+	void histogram()
+	{
+		Metrics.Histogram histogram = new Metrics.Histogram();
+		for ( long nanos = 1; nanos <= 1_000; nanos++ )
+		{
+			histogram.record( nanos );
+		}
+
+		assertEquals( 1_000, histogram.count() );
+		assertEquals( 500_500, histogram.sum() );
+		assertEquals( 511, histogram.percentile( 50 ) );
+		assertEquals( 1_000, histogram.percentile( 99 ) );
+		assertEquals( 1, histogram.percentile( 0 ) );
+
+		histogram.record( Long.MAX_VALUE );
+		assertEquals( Long.MAX_VALUE, histogram.percentile( 100 ) );
+	}
+
+	/**
+	 * Test that the MBean exposes the totals
+	 */
+	@Test
+	void mbean() throws IOException, JMException
+	{
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName( Metrics.OBJECT_NAME );
+		if ( !server.isRegistered( name ) )
+		{
+			Metrics.registerMBean();
+		}
+
+		new ChannelSequenceWriter().write( 50, sink );
+
+		assertEquals( 1L, server.getAttribute( name, "RequestCount" ) );
+		assertEquals( 50L, server.getAttribute( name, "TermsWritten" ) );
+		assertEquals( true, server.getAttribute( name, "Enabled" ) );
+		assertTrue( ( (String) server.invoke( name, "dump", null, null ) ).startsWith( "requests" ) );
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ParallelSequenceWriterTest
+{
+	/**
+	 * Test that the parallel output is identical to walking the sequence,
+	 * including lengths that don't divide evenly into segments
+	 *
+	 * @param length The length of the desired sequence
+	 */
+	@ParameterizedTest
+	@ValueSource( ints = { 1, 2, 255, 256, 257, 3_000, 10_001 } )
+	void write_matchesIterator( int length ) throws IOException
+	{
+		StringBuilder expected = new StringBuilder();
+		FibonacciIterator it = new FibonacciIterator();
+		for ( int i = 1; i <= length; i++ )
+		{
+			expected.append( it.next() );
+			if ( i < length )
+			{
+				expected.append( ' ' );
+			}
+		}
+
+		ForkJoinPool pool = new ForkJoinPool( 3 );
+		try
+		{
+			ByteArrayOutputStream actual = new ByteArrayOutputStream();
+			long written = new ParallelSequenceWriter( pool ).write( length, Channels.newChannel( actual ) );
+			assertEquals( expected.toString(), new String( actual.toByteArray(), StandardCharsets.US_ASCII ) );
+			assertEquals( actual.size(), written );
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+}
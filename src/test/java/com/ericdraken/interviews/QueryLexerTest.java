@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class QueryLexerTest
+{
+	private static String[][] invalidQueriesWithHints()
+	{
+		return new String[][]{
+			{"", ValidatePositive.EMPTY},
+			{"07", ValidatePositive.ZERO},
+			{"0.5", ValidatePositive.ZERO},
+			{"1.5", ValidatePositive.FRACTION},
+			{"1...3", ValidatePositive.FRACTION},
+			{"1..2..3", ValidatePositive.FRACTION},
+			{"1,2..3", ValidatePositive.FRACTION},
+			{"..3", ValidatePositive.FRACTION},
+			{",3", ValidatePositive.MIXED},
+			{"1..2,3", ValidatePositive.MIXED},
+			{"1, 2", ValidatePositive.WHITESPACE},
+			{"1,२", ValidatePositive.ASCII},
+			{"1..", ValidatePositive.INVALID},
+			{"1,2,", ValidatePositive.INVALID},
+			{"5..4", QueryLexer.BACKWARDS},
+			{"9223372036854775808", QueryLexer.TOO_LARGE},
+			{"1..99999999999999999999", QueryLexer.TOO_LARGE},
+			{"99999999999999999999x", ValidatePositive.MIXED}
+		};
+	}
+
+	/**
+	 * Test that a length is hinted exactly like ValidatePositive
+	 */
+	@ParameterizedTest
+	@ValueSource( strings = { "", " ", "0", "07", "1.0", "1..2", "1,2", "abc", "- 123", " -123", "१२३", "12​3", "42" } )
+	void lexLength_matchesValidatePositive( String line )
+	{
+		String expected = null;
+		if ( !ValidatePositive.isValidPositiveIntegerRepresentation( line ) )
+		{
+			// The original scan for the offending character
+			expected = line.isEmpty() ? ValidatePositive.EMPTY : line.charAt( 0 ) == '0' ? ValidatePositive.ZERO : null;
+			for ( int i = 0; expected == null && i < line.length(); i++ )
+			{
+				char chr = line.charAt( i );
+				expected = chr == '.' ? ValidatePositive.FRACTION :
+					chr >= 128 ? ValidatePositive.ASCII :
+						chr == ' ' ? ValidatePositive.WHITESPACE :
+							chr < '0' || chr > '9' ? ValidatePositive.MIXED : null;
+			}
+		}
+		assertEquals( expected, new QueryLexer().lexLength( line ) );
+	}
+
+	/**
+	 * Test numbers, ranges and lists
+	 */
+	@Test
+	void lex_queries()
+	{
+		QueryLexer lexer = new QueryLexer();
+
+		assertNull( lexer.lex( "0" ) );
+		assertEquals( QueryLexer.Kind.NUMBER, lexer.kind() );
+		assertEquals( 0, lexer.first() );
+
+		assertNull( lexer.lex( String.valueOf( Long.MAX_VALUE ) ) );
+		assertEquals( Long.MAX_VALUE, lexer.first() );
+
+		assertNull( lexer.lex( "0..12" ) );
+		assertEquals( QueryLexer.Kind.RANGE, lexer.kind() );
+		assertEquals( 0, lexer.first() );
+		assertEquals( 12, lexer.last() );
+
+		// Longer than the initial list capacity
+		assertNull( lexer.lex( "3,1,4,1,5,9,2,6,5,3,5,0" ) );
+		assertEquals( QueryLexer.Kind.LIST, lexer.kind() );
+		assertEquals( 12, lexer.size() );
+		assertEquals( 9, lexer.get( 5 ) );
+		assertEquals( 0, lexer.last() );
+
+		assertEquals( ValidatePositive.ZERO, lexer.lexLength( "0" ) );
+		assertNull( lexer.lexLength( "10000" ) );
+		assertEquals( 10_000, lexer.first() );
+	}
+
+	/**
+	 * Test the hint of each invalid query
+	 */
+	@ParameterizedTest
+	@MethodSource( value = "invalidQueriesWithHints" )
+	void lex_hints( String line, String hint )
+	{
+		assertEquals( hint, new QueryLexer().lex( line ) );
+	}
+
+	/**
+	 * Test that raw bytes lex like the decoded string
+	 */
+	@ParameterizedTest
+	@MethodSource( value = "invalidQueriesWithHints" )
+	void lex_bytes( String line, String hint )
+	{
+		byte[] bytes = ( "  " + line + "\r\n" ).getBytes( StandardCharsets.UTF_8 );
+		int length = line.getBytes( StandardCharsets.UTF_8 ).length;
+		assertEquals( hint, new QueryLexer().lex( bytes, 2, length ) );
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RecurrenceGeneratorTest
+{
+	private static LinearRecurrence[] recurrences()
+	{
+		return new LinearRecurrence[]{
+			LinearRecurrence.FIBONACCI, LinearRecurrence.LUCAS, LinearRecurrence.TRIBONACCI, LinearRecurrence.PELL,
+
+			// Zero terms and coefficients, and a carry of more than one limb
+			new LinearRecurrence( new long[]{ 0, 0, 1 }, new long[]{ 0, 0, 0 } ),
+			new LinearRecurrence( new long[]{ 0, 2, 1 }, new long[]{ 1, 0, 0 } ),
+			new LinearRecurrence( new long[]{ RecurrenceGenerator.MAX_COEFFICIENT_SUM - 1, 1 }, new long[]{ 999_999_999, 1 } )
+		};
+	}
+
+	/**
+	 * Test that generated terms match the walk from any start, including after seeking
+	 */
+	@ParameterizedTest
+	@MethodSource( value = "recurrences" )
+	void advance_matchesWalk( LinearRecurrence recurrence )
+	{
+		List<BigInteger> expected = LinearRecurrenceTest.naive( recurrence, 600 );
+		SequenceGenerator generator = recurrence.generator( 0 );
+		for ( int n = 0; n < 300; n++ )
+		{
+			assertEquals( n, generator.position() );
+			assertEquals( expected.get( n ), generator.toBigInteger(), "n = " + n );
+			assertEquals( expected.get( n ).toString().length(), generator.digitCount() );
+			generator.advance();
+		}
+
+		generator.seek( 450 );
+		for ( int n = 450; n < 600; n++ )
+		{
+			assertEquals( expected.get( n ), generator.toBigInteger(), "n = " + n );
+			generator.advance();
+		}
+	}
+
+	/**
+	 * Test that the text writer accepts any sequence
+	 */
+	@Test
+	void channelWriter_lucas() throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long written = new ChannelSequenceWriter( 64 ).write( LinearRecurrence.LUCAS.generator( 100 ), 500, Channels.newChannel( out ) );
+
+		String expected = LinearRecurrence.LUCAS.stream( 100, 600 ).map( BigInteger::toString ).collect( Collectors.joining( " " ) );
+		assertEquals( expected, new String( out.toByteArray(), StandardCharsets.US_ASCII ) );
+		assertEquals( expected.length(), written );
+	}
+
+	/**
+	 * Test that recurrences that can go negative or overflow a limb are refused
+	 */
+	@Test
+	void constructor_invalid()
+	{
+		assertThrows( IllegalArgumentException.class, () -> new LinearRecurrence( new long[]{ 1, -1 }, new long[]{ 0, 1 } ).generator( 0 ) );
+		assertThrows( IllegalArgumentException.class, () -> new LinearRecurrence( new long[]{ 1, 1 }, new long[]{ -1, 1 } ).generator( 0 ) );
+		assertThrows( IllegalArgumentException.class, () -> new LinearRecurrence( new long[]{ Long.MAX_VALUE, 1 }, new long[]{ 0, 1 } ).generator( 0 ) );
+		assertThrows( IllegalArgumentException.class, () -> LinearRecurrence.FIBONACCI.generator( -1 ) );
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SequencePlannerTest
+{
+	private static Long[][] sequences()
+	{
+		return new Long[][]{ { 0L, 0L }, { 0L, 1L }, { 0L, 93L }, { 90L, 10L }, { 0L, 5_000L }, { 12_345L, 678L } };
+	}
+
+	/**
+	 * Test digit counts against the formatted Fibs, across the long boundary
+	 */
+	@Test
+	void digits()
+	{
+		InPlaceFibonacciGenerator generator = new InPlaceFibonacciGenerator();
+		for ( long n = 0; n < 20_000; n++ )
+		{
+			assertEquals( generator.digitCount(), SequencePlanner.digits( n ), "F(" + n + ")" );
+			generator.advance();
+		}
+		assertEquals( Fibonacci.term( 1_000_000 ).toString().length(), SequencePlanner.digits( 1_000_000 ) );
+
+		// Too large to check, but the formula still applies
+		assertEquals( 1_927_570_757_129_919_482L, SequencePlanner.digits( Long.MAX_VALUE ) );
+		assertThrows( IllegalArgumentException.class, () -> SequencePlanner.digits( -1 ) );
+	}
+
+	/**
+	 * Test that the planned size matches what is written
+	 */
+	@ParameterizedTest
+	@MethodSource( value = "sequences" )
+	void sequenceBytes( long start, long count ) throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long written = new ChannelSequenceWriter().write( start, count, Channels.newChannel( out ) );
+
+		assertEquals( written, SequencePlanner.sequenceBytes( start, count ) );
+		assertEquals( out.size(), written );
+	}
+
+	/**
+	 * Test the first index of each digit count
+	 */
+	@Test
+	void firstWithDigits()
+	{
+		assertEquals( 0, SequencePlanner.firstWithDigits( 1 ) );
+		assertEquals( 7, SequencePlanner.firstWithDigits( 2 ) );
+		for ( long digits = 19; digits < 300; digits++ )
+		{
+			long n = SequencePlanner.firstWithDigits( digits );
+			assertEquals( digits, SequencePlanner.digits( n ) );
+			assertEquals( digits - 1, SequencePlanner.digits( n - 1 ) );
+		}
+	}
+
+	/**
+	 * Test that a preallocated file is exactly filled by the sequence
+	 */
+	@Test
+	void preallocate() throws IOException
+	{
+		Path file = Files.createTempFile( "fibs-", ".txt" );
+		try
+		{
+			long bytes = SequencePlanner.sequenceBytes( 0, 3_000 );
+			SequencePlanner.checkFreeSpace( file, bytes );
+			try ( FileChannel channel = FileChannel.open( file, WRITE ) )
+			{
+				SequencePlanner.preallocate( channel, bytes );
+				assertEquals( bytes, channel.size() );
+				assertEquals( 0, channel.position() );
+				new ChannelSequenceWriter().write( 3_000, channel );
+			}
+			assertEquals( bytes, Files.size( file ) );
+			assertTrue( Character.isDigit( Files.readAllBytes( file )[(int) bytes - 1] ) );
+
+			assertThrows( IOException.class, () -> SequencePlanner.checkFreeSpace( file, Long.MAX_VALUE ) );
+		}
+		finally
+		{
+			Files.delete( file );
+		}
+	}
+
+	/**
+	 * Test that a failed write's preallocated file is deleted rather than left at full size
+	 */
+	@Test
+	void discard() throws IOException
+	{
+		Path file = Files.createTempFile( "fibs-", ".txt" );
+		try
+		{
+			try ( FileChannel channel = FileChannel.open( file, WRITE ) )
+			{
+				SequencePlanner.preallocate( channel, SequencePlanner.sequenceBytes( 0, 3_000 ) );
+				new ChannelSequenceWriter().write( 100, channel );
+			}
+
+			IOException failure = new IOException( "Disk full" );
+			SequencePlanner.discard( file, failure );
+			assertFalse( Files.exists( file ) );
+
+			// Nothing left to delete is not a second failure
+			SequencePlanner.discard( file, failure );
+			assertEquals( 0, failure.getSuppressed().length );
+		}
+		finally
+		{
+			Files.deleteIfExists( file );
+		}
+	}
+
+	/**
+	 * Test that progress reports count the Fibs written
+	 */
+	@Test
+	void progressChannel() throws IOException
+	{
+		ByteArrayOutputStream log = new ByteArrayOutputStream();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try ( ProgressChannel channel = new ProgressChannel(
+			Channels.newChannel( out ), 0, 6_000, new PrintStream( log, true ), 1, TimeUnit.MILLISECONDS ) )
+		{
+			// Small buffers make many writes, so reports land mid-sequence
+			new ChannelSequenceWriter( 4_096 ).write( 6_000, channel );
+		}
+
+		String[] lines = new String( log.toByteArray(), StandardCharsets.US_ASCII ).trim().split( "\n" );
+		String last = lines[lines.length - 1];
+		assertTrue( last.startsWith( "6,000 of 6,000 Fibs, " + String.format( "%,d", out.size() ) ), last );
+		assertTrue( last.contains( "(100.0%)" ), last );
+	}
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardCoordinatorTest
+{
+	private Path dir;
+
+	@BeforeEach
+	void createDir() throws IOException
+	{
+		dir = Files.createTempDirectory( "fibs-" );
+	}
+
+	@AfterEach
+	void deleteDir() throws IOException
+	{
+		// Children sort after their parents, so delete in reverse
+		try ( Stream<Path> paths = Files.walk( dir ) )
+		{
+			for ( Path path : (Iterable<Path>) paths.sorted( Comparator.reverseOrder() )::iterator )
+			{
+				Files.delete( path );
+			}
+		}
+	}
+
+	private static Long[][] plans()
+	{
+		return new Long[][]{ { 0L, 1L, 4L }, { 0L, 10_000L, 4L }, { 5_000L, 3_000L, 3L }, { 0L, 100_000L, 16L }, { 1_000_000_000L, 9_999L, 7L } };
+	}
+
+	/**
+	 * Return the expected bytes of a range written in one process
+	 */
+	private static byte[] expected( long start, long count ) throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new ChannelSequenceWriter().write( start, count, Channels.newChannel( out ) );
+		return out.toByteArray();
+	}
+
+	/**
+	 * Test that shards cover the range in order, non-empty, and about equal in bytes
+	 */
+	@ParameterizedTest
+	@MethodSource( value = "plans" )
+	void plan( long start, long count, long shards )
+	{
+		long[] bounds = ShardCoordinator.plan( start, count, (int) shards );
+		assertEquals( start, bounds[0] );
+		assertEquals( start + count, bounds[bounds.length - 1] );
+
+		long total = SequencePlanner.sequenceBytes( start, count );
+		for ( int i = 1; i < bounds.length; i++ )
+		{
+			assertTrue( bounds[i] > bounds[i - 1] );
+			if ( bounds.length > 2 )
+			{
+				long bytes = SequencePlanner.sequenceBytes( bounds[i - 1], bounds[i] - bounds[i - 1] );
+				assertEquals( (double) total / ( bounds.length - 1 ), bytes, total * 0.02 + 100 );
+			}
+		}
+	}
+
+	/**
+	 * Test that worker JVMs and the zero-copy join produce the same file as one process
+	 */
+	@Test
+	void write_workers() throws IOException, InterruptedException
+	{
+		Path output = dir.resolve( "fibs.txt" );
+		ShardCoordinator coordinator = new ShardCoordinator( ShardCoordinator.localWorkerCommand(), 2, 1 );
+
+		long written = coordinator.write( 500, 5_000, 3, output );
+
+		byte[] expected = expected( 500, 5_000 );
+		assertArrayEquals( expected, Files.readAllBytes( output ) );
+		assertEquals( expected.length, written );
+		assertFalse( Files.exists( dir.resolve( "fibs.txt" + ShardCoordinator.SHARD_DIR_SUFFIX ) ) );
+	}
+
+	/**
+	 * Test that complete shards are reused, and partial ones are regenerated
+	 */
+	@Test
+	void write_resumes() throws IOException, InterruptedException
+	{
+		Path output = dir.resolve( "fibs.txt" );
+		Path shards = Files.createDirectories( dir.resolve( "fibs.txt" + ShardCoordinator.SHARD_DIR_SUFFIX ) );
+		long[] bounds = ShardCoordinator.plan( 0, 4_000, 2 );
+		Path first = shards.resolve( "0-" + bounds[1] + ShardCoordinator.SHARD_SUFFIX );
+		Path second = shards.resolve( bounds[1] + "-" + ( 4_000 - bounds[1] ) + ShardCoordinator.SHARD_SUFFIX );
+
+		// With both shards complete, a worker that always fails is never needed
+		ShardWorker.write( 0, bounds[1], false, first );
+		ShardWorker.write( bounds[1], 4_000 - bounds[1], true, second );
+		new ShardCoordinator( Collections.singletonList( "false" ), 2, 1 ).write( 0, 4_000, 2, output );
+		assertArrayEquals( expected( 0, 4_000 ), Files.readAllBytes( output ) );
+
+		// A truncated shard is regenerated
+		Files.createDirectories( shards );
+		ShardWorker.write( 0, bounds[1], false, first );
+		ShardWorker.write( bounds[1], 10, true, second );
+		new ShardCoordinator( ShardCoordinator.localWorkerCommand(), 1, 1 ).write( 0, 4_000, 2, output );
+		assertArrayEquals( expected( 0, 4_000 ), Files.readAllBytes( output ) );
+	}
+
+	/**
+	 * Test that shards left by a run with another shard count are discarded, not joined
+	 */
+	@Test
+	void write_otherPlan() throws IOException, InterruptedException
+	{
+		Path output = dir.resolve( "fibs.txt" );
+		Path shards = Files.createDirectories( dir.resolve( "fibs.txt" + ShardCoordinator.SHARD_DIR_SUFFIX ) );
+		long[] bounds = ShardCoordinator.plan( 0, 4_000, 3 );
+		Path stale = shards.resolve( "0-" + bounds[1] + ShardCoordinator.SHARD_SUFFIX );
+		ShardWorker.write( 0, bounds[1], false, stale );
+		Files.createFile( shards.resolve( "0-10" + ShardCoordinator.SHARD_SUFFIX + ShardWorker.TEMP_SUFFIX ) );
+
+		new ShardCoordinator( ShardCoordinator.localWorkerCommand(), 2, 1 ).write( 0, 4_000, 2, output );
+		assertArrayEquals( expected( 0, 4_000 ), Files.readAllBytes( output ) );
+		assertFalse( Files.exists( shards ) );
+	}
+
+	/**
+	 * Test that failing shards are retried and then reported, keeping the completed ones
+	 */
+	@Test
+	void write_fails() throws IOException
+	{
+		Path output = dir.resolve( "fibs.txt" );
+		ShardCoordinator coordinator = new ShardCoordinator( Collections.singletonList( "false" ), 2, 3 );
+
+		IOException e = assertThrows( IOException.class, () -> coordinator.write( 0, 4_000, 2, output ) );
+		assertTrue( e.getMessage().startsWith( "2 of 2 shards failed" ), e.getMessage() );
+		assertTrue( e.getMessage().contains( "after 3 attempts" ), e.getMessage() );
+		assertTrue( Files.isDirectory( dir.resolve( "fibs.txt" + ShardCoordinator.SHARD_DIR_SUFFIX ) ) );
+		assertFalse( Files.exists( output ) );
+	}
+}
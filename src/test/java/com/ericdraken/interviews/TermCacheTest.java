@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2019. Eric Draken - ericdraken.com
+ */
+
+package com.ericdraken.interviews;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TermCacheTest
+{
+	/**
+	 * Test that hits and misses are counted and hits return the cached digits
+	 */
+	@Test
+	void get_countsHitsAndMisses()
+	{
+		TermCache cache = new TermCache();
+		byte[] first = cache.get( 1_000 );
+		byte[] second = cache.get( 1_000 );
+
+		assertEquals( Fibonacci.term( 1_000 ).toString(), new String( first, StandardCharsets.US_ASCII ) );
+		assertTrue( first == second );
+		assertEquals( 1, cache.hits() );
+		assertEquals( 1, cache.misses() );
+	}
+
+	/**
+	 * Test that eviction is by retained bytes in least recently used order
+	 */
+	@Test
+	void put_evictsByBytes()
+	{
+		// Room for about three 100-byte Fibs with their overhead
+		TermCache cache = new TermCache( 3 * 180 );
+		cache.put( 1, new byte[100] );
+		cache.put( 2, new byte[100] );
+		cache.put( 3, new byte[100] );
+		assertEquals( 0, cache.evictions() );
+
+		// Touch 1 so that 2 is the least recently used
+		cache.getIfPresent( 1 );
+		cache.put( 4, new byte[100] );
+
+		assertEquals( 1, cache.evictions() );
+		assertNull( cache.getIfPresent( 2 ) );
+		assertTrue( cache.retainedBytes() <= 3 * 180 );
+
+		// A Fib larger than the cache is not kept and evicts nothing
+		cache.put( 5, new byte[1_000] );
+		assertNull( cache.getIfPresent( 5 ) );
+		assertEquals( 3, cache.size() );
+	}
+
+	/**
+	 * Test that overlapping sequences are written correctly and served from the cache
+	 */
+	@Test
+	void write_overlappingSequences() throws IOException
+	{
+		TermCache cache = new TermCache();
+		assertEquals( expected( 0, 500 ), write( cache, 0, 500 ) );
+		assertEquals( 500, cache.misses() );
+
+		// The first 500 are hits, the next 300 are generated
+		assertEquals( expected( 0, 800 ), write( cache, 0, 800 ) );
+		assertEquals( 500, cache.hits() );
+		assertEquals( 800, cache.misses() );
+
+		assertEquals( expected( 700, 50 ), write( cache, 700, 50 ) );
+		assertArrayEquals( Fibonacci.term( 799 ).toString().getBytes( StandardCharsets.US_ASCII ), cache.get( 799 ) );
+	}
+
+	/**
+	 * Write a range through the cache and return it as text
+	 */
+	private static String write( TermCache cache, long start, long count ) throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long written = cache.write( start, count, Channels.newChannel( out ) );
+		assertEquals( out.size(), written );
+		return new String( out.toByteArray(), StandardCharsets.US_ASCII );
+	}
+
+	/**
+	 * Return the expected text of [count] Fibs starting at F(start)
+	 */
+	private static String expected( long start, long count )
+	{
+		StringBuilder sb = new StringBuilder();
+		FibonacciIterator it = new FibonacciIterator( start );
+		for ( long i = 1; i <= count; i++ )
+		{
+			sb.append( it.next() );
+			if ( i < count )
+			{
+				sb.append( ' ' );
+			}
+		}
+		return sb.toString();
+	}
+}